@@ -1,5 +1,6 @@
 package cc.rainyctl.gateway;
 
+import cc.rainyctl.common.startup.StartupTimeline;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
@@ -9,6 +10,6 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 public class GatewayMainApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(GatewayMainApplication.class, args);
+        StartupTimeline.apply(new SpringApplication(GatewayMainApplication.class)).run(args);
     }
 }
@@ -1,5 +1,6 @@
 package cc.rainyctl.gateway.filter;
 
+import cc.rainyctl.common.trace.Trace;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
@@ -10,21 +11,38 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-// no registry required, apply automatically
+// no registry required, apply automatically.
+// also the start of the trace: every request gets an X-Trace-Id (kept when the
+// client sent a valid one) that the services pass along, and the gateway's time
+// is added to the Server-Timing entries coming back from the service
 @Slf4j
 @Component
 public class ResponseTimeGlobalFilter implements GlobalFilter, Ordered {
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         ServerHttpResponse response = exchange.getResponse();
 
+        String traceId = request.getHeaders().getFirst(Trace.HEADER);
+        String id = Trace.isValidId(traceId) ? traceId : Trace.newId();
+
         String uri = request.getURI().toString();
-        long start = System.currentTimeMillis();
-        log.info("Request {} received at {}", uri, start);
+        long start = System.nanoTime();
+        log.info("Request {} trace {} received", uri, id);
+
+        response.beforeCommit(() -> {
+            long tenths = (System.nanoTime() - start) / 100_000;
+            response.getHeaders().set(Trace.HEADER, id);
+            response.getHeaders().add(Trace.SERVER_TIMING, "gateway;dur=" + tenths / 10 + "." + tenths % 10);
+            return Mono.empty();
+        });
 
-        return chain.filter(exchange)
-                .doFinally(signalType -> log.info("Request {} took {} ms", uri, System.currentTimeMillis() - start));
+        ServerWebExchange traced = exchange.mutate()
+                .request(request.mutate().header(Trace.HEADER, id).build())
+                .build();
+        return chain.filter(traced)
+                .doFinally(signalType -> log.info("Request {} trace {} took {} ms", uri, id, (System.nanoTime() - start) / 1_000_000));
     }
 
     @Override
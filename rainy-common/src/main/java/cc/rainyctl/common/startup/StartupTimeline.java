@@ -0,0 +1,22 @@
+package cc.rainyctl.common.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.metrics.jfr.FlightRecorderApplicationStartup;
+
+// -Dstartup.timeline=true records the startup steps of a service as JFR events
+// (FlightRecorderStartupEvent), see startup-bench.sh. off by default: the
+// default ApplicationStartup records nothing
+public final class StartupTimeline {
+
+    public static final String PROPERTY = "startup.timeline";
+
+    private StartupTimeline() {
+    }
+
+    public static SpringApplication apply(SpringApplication app) {
+        if (Boolean.getBoolean(PROPERTY)) {
+            app.setApplicationStartup(new FlightRecorderApplicationStartup());
+        }
+        return app;
+    }
+}
@@ -0,0 +1,14 @@
+package cc.rainyctl.common.trace;
+
+import lombok.Value;
+
+// one timed phase of a request. offset is measured from the start of the trace in this service
+@Value
+public class Span {
+    long seq;
+    String traceId;
+    String name;
+    long epochMillis;
+    long offsetNanos;
+    long durationNanos;
+}
@@ -0,0 +1,68 @@
+package cc.rainyctl.common.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// the last N spans of the process, written without locks: a writer claims a
+// sequence number and replaces the older span in its slot. readers copy what is
+// there, a slot overwritten during the copy is skipped by its sequence number
+public class SpanRing {
+
+    private final AtomicReferenceArray<Span> slots;
+
+    private final int mask;
+
+    private final AtomicLong cursor = new AtomicLong();
+
+    public SpanRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, got " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public Span add(String traceId, String name, long offsetNanos, long durationNanos) {
+        long seq = cursor.getAndIncrement();
+        Span span = new Span(seq, traceId, name, System.currentTimeMillis(), offsetNanos, durationNanos);
+        int index = (int) (seq & mask);
+        // a writer delayed by a full lap must not overwrite the newer span in its slot.
+        // readers only need to see it eventually, no full fence on the hot path
+        Span current = slots.get(index);
+        while ((current == null || current.getSeq() < seq) && !slots.weakCompareAndSetRelease(index, current, span)) {
+            current = slots.get(index);
+        }
+        return span;
+    }
+
+    // oldest first
+    public List<Span> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length());
+        List<Span> spans = new ArrayList<>((int) (end - start));
+        for (long seq = start; seq < end; seq++) {
+            Span span = slots.get((int) (seq & mask));
+            if (span != null && span.getSeq() == seq) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    // spans of one trace that are still in the ring, oldest first
+    public List<Span> find(String traceId) {
+        List<Span> spans = new ArrayList<>();
+        for (Span span : snapshot()) {
+            if (span.getTraceId().equals(traceId)) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
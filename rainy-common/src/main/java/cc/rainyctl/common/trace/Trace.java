@@ -0,0 +1,177 @@
+package cc.rainyctl.common.trace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// lightweight request tracing without an agent or collector.
+// the trace id travels in the X-Trace-Id header (gateway -> order -> product),
+// each service times the phases of a request on the request thread and
+// keeps the spans in a process-wide SpanRing, for dumping slow requests.
+// outside a request (no begin()) span() just runs the action.
+// work done once for several requests (a batched product lookup) runs under the
+// first request's id and links the others: X-Trace-Links, and its spans are
+// recorded under every linked id as well
+public final class Trace {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    // comma-separated
+    public static final String LINKS_HEADER = "X-Trace-Links";
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private static final int MAX_ID_LENGTH = 64;
+
+    // bounds the header and the ring slots one span takes
+    private static final int MAX_LINKS = 32;
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private static final SpanRing RING = new SpanRing(4096);
+
+    private final String traceId;
+
+    private final List<String> links;
+
+    private final long startNanos = System.nanoTime();
+
+    // only touched by the request thread
+    private final List<Span> spans = new ArrayList<>(8);
+
+    private Trace(String traceId, List<String> links) {
+        this.traceId = traceId;
+        this.links = links;
+    }
+
+    // incoming id is reused when it looks like one, otherwise a new one is made
+    public static Trace begin(String traceId) {
+        return begin(traceId, List.of());
+    }
+
+    // links that are not valid ids, repeated or the trace's own id are dropped
+    public static Trace begin(String traceId, Collection<String> links) {
+        String id = isValidId(traceId) ? traceId : newId();
+        Set<String> kept = new LinkedHashSet<>();
+        for (String link : links) {
+            if (kept.size() < MAX_LINKS && isValidId(link) && !link.equals(id)) {
+                kept.add(link);
+            }
+        }
+        Trace trace = new Trace(id, List.copyOf(kept));
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static Trace current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static SpanRing ring() {
+        return RING;
+    }
+
+    public static <T> T span(String name, Supplier<T> action) {
+        Trace trace = CURRENT.get();
+        if (trace == null) {
+            return action.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            trace.record(name, start, System.nanoTime());
+        }
+    }
+
+    public static void span(String name, Runnable action) {
+        span(name, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // for phases that do not fit a block, e.g. between two callbacks
+    public void record(String name, long startNanos, long endNanos) {
+        long offset = startNanos - this.startNanos;
+        long duration = endNanos - startNanos;
+        spans.add(RING.add(traceId, name, offset, duration));
+        for (int i = 0; i < links.size(); i++) {
+            RING.add(links.get(i), name, offset, duration);
+        }
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public List<String> getLinks() {
+        return links;
+    }
+
+    // null without links
+    public String linksHeader() {
+        return links.isEmpty() ? null : String.join(",", links);
+    }
+
+    public static List<String> parseLinks(String header) {
+        if (header == null || header.isEmpty()) {
+            return List.of();
+        }
+        List<String> links = new ArrayList<>();
+        for (String link : header.split(",")) {
+            links.add(link.trim());
+        }
+        return links;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public List<Span> getSpans() {
+        return Collections.unmodifiableList(spans);
+    }
+
+    // e.g. "product-fetch;dur=3.2, order-insert;dur=0.8, total;dur=12.5" (milliseconds)
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder(32 * (spans.size() + 1));
+        for (Span span : spans) {
+            appendTiming(header, span.getName(), span.getDurationNanos()).append(", ");
+        }
+        return appendTiming(header, "total", elapsedNanos()).toString();
+    }
+
+    private static StringBuilder appendTiming(StringBuilder header, String name, long nanos) {
+        long tenths = nanos / 100_000;
+        return header.append(name).append(";dur=").append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    public static String newId() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+    }
+
+    // ids end up in headers and logs: short, [0-9a-zA-Z-] only
+    public static boolean isValidId(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            boolean allowed = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,18 @@
+package cc.rainyctl.common.trace;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+
+// the trace admin endpoint of the servlet services; the reactive gateway has none
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "rainy.tracing.admin-endpoint", havingValue = "true")
+public class TraceAutoConfiguration {
+
+    @Bean
+    public TraceController traceController() {
+        return new TraceController();
+    }
+}
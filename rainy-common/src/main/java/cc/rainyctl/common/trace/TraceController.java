@@ -0,0 +1,22 @@
+package cc.rainyctl.common.trace;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// the trace ring holds trace ids, paths and timings of every caller's requests and
+// there is no authentication in front of it: registered by TraceAutoConfiguration only
+// with rainy.tracing.admin-endpoint=true, only turn it on where the port is not
+// reachable from outside. each service puts it under its own gateway route with
+// rainy.tracing.admin-path, e.g. /api/order/admin/trace
+@RestController
+public class TraceController {
+
+    // spans still in the trace ring, of one trace (X-Trace-Id of a response) or all, oldest first
+    @GetMapping("${rainy.tracing.admin-path:/admin/trace}")
+    public List<Span> traceSpans(@RequestParam(value = "traceId", required = false) String traceId) {
+        return traceId == null ? Trace.ring().snapshot() : Trace.ring().find(traceId);
+    }
+}
@@ -0,0 +1,92 @@
+package cc.rainyctl.common.trace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// starts the trace of a request (id and links from the gateway or a calling service,
+// or a new id), echoes the id and sends the recorded spans as Server-Timing. requests slower
+// than the slow threshold are logged with all their spans.
+// not a @Component, each service registers it as a bean with its own threshold
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceFilter extends OncePerRequestFilter {
+
+    // asked once per request, so a live-tuned value applies to the next request
+    private final Supplier<Duration> slowThreshold;
+
+    public TraceFilter(Supplier<Duration> slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Trace trace = Trace.begin(request.getHeader(Trace.HEADER), Trace.parseLinks(request.getHeader(Trace.LINKS_HEADER)));
+        response.setHeader(Trace.HEADER, trace.getTraceId());
+        ServerTimingResponse timed = new ServerTimingResponse(response, trace);
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            // no body (e.g. void handlers): not committed yet
+            timed.writeServerTiming();
+            Trace.end();
+            long elapsed = trace.elapsedNanos();
+            if (elapsed >= slowThreshold.get().toNanos()) {
+                log.warn("Slow request {} {} trace {} took {} ms: {}", request.getMethod(), request.getRequestURI(),
+                        trace.getTraceId(), elapsed / 1_000_000, trace.getSpans());
+            }
+        }
+    }
+
+    // headers have to go out before the body, add Server-Timing when the body is first written.
+    // for @RestController handlers that is after the handler returned, so all spans are in
+    static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final Trace trace;
+
+        private boolean written;
+
+        ServerTimingResponse(HttpServletResponse response, Trace trace) {
+            super(response);
+            this.trace = trace;
+        }
+
+        void writeServerTiming() {
+            if (!written && !isCommitted()) {
+                setHeader(Trace.SERVER_TIMING, trace.serverTiming());
+            }
+            written = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeServerTiming();
+            super.flushBuffer();
+        }
+    }
+}
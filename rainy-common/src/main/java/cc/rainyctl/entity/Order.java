@@ -7,17 +7,20 @@ import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @TableName("t_order")
 public class Order {
-    @TableId(type = IdType.AUTO)
+    // globally unique (snowflake), auto-increment would collide across order shards
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     private Long userId;
     private String nickName;
     private String address;
     private BigDecimal totalAmount;
+    private LocalDateTime createTime;
 
     // this field exists in Java but not in the table
     @TableField(exist = false)
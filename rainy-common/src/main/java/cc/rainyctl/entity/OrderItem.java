@@ -10,7 +10,8 @@ import java.math.BigDecimal;
 @Data
 @TableName("t_order_item")
 public class OrderItem {
-    @TableId(type = IdType.AUTO)
+    // globally unique (snowflake), auto-increment would collide across order shards
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     private Long orderId;
     private Long productId;
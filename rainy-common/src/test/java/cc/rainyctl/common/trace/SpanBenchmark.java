@@ -0,0 +1,64 @@
+package cc.rainyctl.common.trace;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// cost of one span on the request path: two nanoTime calls, one allocation, one ring slot.
+// noTrace is a span() outside a request, contended has 8 threads writing to the one ring.
+// replaces the wall-clock assertion TraceTest used to have
+// run from the IDE (main method) or:
+//   mvn -pl rainy-common test-compile exec:java \
+//     -Dexec.classpathScope=test -Dexec.mainClass=cc.rainyctl.common.trace.SpanBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpanBenchmark {
+
+    // a request records a handful of spans, keep the per-request span list that short
+    private static final int SPANS_PER_TRACE = 64;
+
+    private int spans;
+
+    @TearDown
+    public void tearDown() {
+        Trace.end();
+    }
+
+    @Benchmark
+    public Integer span() {
+        return record();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer contended() {
+        return record();
+    }
+
+    // every benchmark runs in its own fork, no trace was ever begun on this thread
+    @Benchmark
+    public Integer noTrace() {
+        return Trace.span("phase", () -> 1);
+    }
+
+    private Integer record() {
+        if (spans++ % SPANS_PER_TRACE == 0) {
+            Trace.begin("benchmark");
+        }
+        return Trace.span("phase", () -> 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(SpanBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,59 @@
+package cc.rainyctl.common.trace;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class TraceAutoConfigurationTest {
+
+    private final WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TraceAutoConfiguration.class, WebMvcAutoConfiguration.class,
+                    JacksonAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class));
+
+    @Test
+    public void testOffByDefault() {
+        runner.run(context -> assertThat(context).doesNotHaveBean(TraceController.class));
+        runner.withPropertyValues("rainy.tracing.admin-endpoint=false")
+                .run(context -> assertThat(context).doesNotHaveBean(TraceController.class));
+    }
+
+    // the gateway has rainy-common on its classpath too
+    @Test
+    public void testNotInReactiveApplication() {
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TraceAutoConfiguration.class))
+                .withPropertyValues("rainy.tracing.admin-endpoint=true")
+                .run(context -> assertThat(context).doesNotHaveBean(TraceController.class));
+    }
+
+    @Test
+    public void testServedUnderServicePath() {
+        try {
+            Trace.begin("admin-trace-1");
+            Trace.span("product-fetch", () -> 1);
+        } finally {
+            Trace.end();
+        }
+
+        runner.withPropertyValues("rainy.tracing.admin-endpoint=true", "rainy.tracing.admin-path=/api/order/admin/trace")
+                .run(context -> {
+                    MockMvc mvc = MockMvcBuilders.webAppContextSetup(context).build();
+                    mvc.perform(get("/api/order/admin/trace").param("traceId", "admin-trace-1"))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.length()").value(1))
+                            .andExpect(jsonPath("$[0].name").value("product-fetch"));
+                    mvc.perform(get("/admin/trace")).andExpect(status().isNotFound());
+                });
+    }
+}
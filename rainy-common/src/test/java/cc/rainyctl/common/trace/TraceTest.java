@@ -0,0 +1,163 @@
+package cc.rainyctl.common.trace;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TraceTest {
+
+    @Test
+    public void testRingKeepsNewestSpans() {
+        SpanRing ring = new SpanRing(8);
+        for (int i = 0; i < 20; i++) {
+            ring.add(i % 2 == 0 ? "even" : "odd", "span-" + i, 0, i);
+        }
+
+        List<Span> spans = ring.snapshot();
+        assertEquals(8, spans.size());
+        assertEquals("span-12", spans.get(0).getName());
+        assertEquals("span-19", spans.get(7).getName());
+        assertEquals(4, ring.find("even").size());
+    }
+
+    @Test
+    public void testRingConcurrentWriters() throws Exception {
+        SpanRing ring = new SpanRing(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String traceId = "t" + t;
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    ring.add(traceId, "work", 0, i);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        pool.shutdown();
+
+        List<Span> spans = ring.snapshot();
+        assertEquals(1024, spans.size());
+        for (int i = 1; i < spans.size(); i++) {
+            assertEquals(spans.get(i - 1).getSeq() + 1, spans.get(i).getSeq());
+        }
+        assertEquals(8 * 100_000 - 1, spans.get(1023).getSeq());
+    }
+
+    @Test
+    public void testSpanOutsideRequest() {
+        assertNull(Trace.current());
+        assertEquals(42, Trace.span("nothing", () -> 42));
+    }
+
+    @Test
+    public void testTraceIdFromHeader() {
+        try {
+            assertEquals("4bf92f3577b34da6", Trace.begin("4bf92f3577b34da6").getTraceId());
+            // header injection / log forging attempts get a fresh id
+            assertNotEquals("a\r\nX-Evil: 1", Trace.begin("a\r\nX-Evil: 1").getTraceId());
+            assertEquals(16, Trace.begin(null).getTraceId().length());
+        } finally {
+            Trace.end();
+        }
+    }
+
+    @Test
+    public void testFilterSendsServerTiming() throws Exception {
+        TraceFilter filter = new TraceFilter(() -> Duration.ofSeconds(1));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/order/create");
+        request.addHeader(Trace.HEADER, "gw-trace-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                Trace.span("order-insert", () -> sleep(2));
+                Trace.span("stock-deduct", () -> sleep(1));
+                resp.getWriter().write("{}");
+                // the body is out, later spans cannot make it into the header
+                Trace.span("late", () -> sleep(1));
+            }
+        }));
+
+        assertEquals("gw-trace-1", response.getHeader(Trace.HEADER));
+        String timing = response.getHeader(Trace.SERVER_TIMING);
+        assertTrue(timing.matches("order-insert;dur=\\d+\\.\\d, stock-deduct;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d"), timing);
+        assertEquals(List.of("order-insert", "stock-deduct", "late"),
+                Trace.ring().find("gw-trace-1").stream().map(Span::getName).toList());
+        assertNull(Trace.current());
+    }
+
+    // a batched call from service-order: spans are found under each caller's trace
+    @Test
+    public void testFilterRecordsUnderLinkedTraces() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/product/batch");
+        request.addHeader(Trace.HEADER, "batch-caller-1");
+        request.addHeader(Trace.LINKS_HEADER, "batch-caller-2, bad\r\nid,batch-caller-1,batch-caller-3");
+        new TraceFilter(() -> Duration.ofSeconds(1)).doFilter(request, new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                        assertEquals(List.of("batch-caller-2", "batch-caller-3"), Trace.current().getLinks());
+                        Trace.span("product-select", () -> sleep(1));
+                    }
+                }));
+
+        for (String caller : List.of("batch-caller-1", "batch-caller-2", "batch-caller-3")) {
+            assertEquals(List.of("product-select"), Trace.ring().find(caller).stream().map(Span::getName).toList());
+        }
+    }
+
+    @Test
+    public void testLinksHeader() {
+        try {
+            assertNull(Trace.begin("one").linksHeader());
+            assertEquals("two,three", Trace.begin("one", List.of("two", "three", "two")).linksHeader());
+            assertEquals(List.of("two", "three"), Trace.parseLinks(" two ,three"));
+            assertEquals(List.of(), Trace.parseLinks(null));
+        } finally {
+            Trace.end();
+        }
+    }
+
+    @Test
+    public void testFilterWithoutBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new TraceFilter(() -> Duration.ofSeconds(1)).doFilter(new MockHttpServletRequest("POST", "/api/order/x"), response,
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                        Trace.span("work", () -> sleep(1));
+                    }
+                }));
+
+        assertTrue(response.getHeader(Trace.SERVER_TIMING).startsWith("work;dur="));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package cc.rainyctl.services.order;
 
+import cc.rainyctl.common.startup.StartupTimeline;
+import cc.rainyctl.services.order.tuning.OrderTuningHolder;
 import com.alibaba.cloud.nacos.NacosConfigManager;
 import com.alibaba.nacos.api.config.ConfigService;
 import com.alibaba.nacos.api.config.listener.Listener;
@@ -13,7 +15,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 @Slf4j
 @EnableDiscoveryClient // enable service discovery
@@ -23,23 +24,26 @@ import java.util.concurrent.Executors;
 public class OrderMainApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(OrderMainApplication.class, args);
+        StartupTimeline.apply(new SpringApplication(OrderMainApplication.class)).run(args);
     }
 
+    // Nacos content changes are turned into a new OrderTuning snapshot,
+    // on the one tuning thread (getExecutor() is asked on every notification)
     @Bean
-    public ApplicationRunner nacosConfigListener(NacosConfigManager nacosConfigManager) {
+    public ApplicationRunner nacosConfigListener(NacosConfigManager nacosConfigManager, OrderTuningHolder tuning) {
         log.info("Nacos Config Listener is starting.");
         return args -> {
             ConfigService configService = nacosConfigManager.getConfigService();
             configService.addListener("service-order.properties", "DEFAULT_GROUP", new Listener() {
                 @Override
                 public Executor getExecutor() {
-                    return Executors.newFixedThreadPool(4);
+                    return tuning.executor();
                 }
 
                 @Override
                 public void receiveConfigInfo(String configInfo) {
                     log.info("Nacos config info changed to: {}", configInfo);
+                    tuning.update(configInfo);
                 }
             });
         };
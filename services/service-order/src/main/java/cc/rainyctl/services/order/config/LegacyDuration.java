@@ -0,0 +1,13 @@
+package cc.rainyctl.services.order.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// a Duration property that used to be a plain string: besides 300m / PT5H it also
+// binds the spelled-out units older configs use (300min, 7 days), see LegacyDurationConverter
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface LegacyDuration {
+}
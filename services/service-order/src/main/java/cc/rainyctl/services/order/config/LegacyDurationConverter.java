@@ -0,0 +1,64 @@
+package cc.rainyctl.services.order.config;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.ConditionalGenericConverter;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Map.entry;
+
+// binds @LegacyDuration fields: whatever Spring accepts for a Duration, then the spelled-out
+// units (order.timeout=300min was the documented value while the field was a String).
+// anything else fails the bind of that key with the forms it takes
+public class LegacyDurationConverter implements ConditionalGenericConverter {
+
+    private static final Pattern SPELLED_OUT = Pattern.compile("([+-]?\\d+)\\s*([a-zA-Z]+)");
+
+    private static final Map<String, ChronoUnit> UNITS = Map.ofEntries(
+            entry("sec", ChronoUnit.SECONDS), entry("secs", ChronoUnit.SECONDS),
+            entry("second", ChronoUnit.SECONDS), entry("seconds", ChronoUnit.SECONDS),
+            entry("min", ChronoUnit.MINUTES), entry("mins", ChronoUnit.MINUTES),
+            entry("minute", ChronoUnit.MINUTES), entry("minutes", ChronoUnit.MINUTES),
+            entry("hr", ChronoUnit.HOURS), entry("hrs", ChronoUnit.HOURS),
+            entry("hour", ChronoUnit.HOURS), entry("hours", ChronoUnit.HOURS),
+            entry("day", ChronoUnit.DAYS), entry("days", ChronoUnit.DAYS));
+
+    @Override
+    public Set<ConvertiblePair> getConvertibleTypes() {
+        return Set.of(new ConvertiblePair(String.class, Duration.class));
+    }
+
+    @Override
+    public boolean matches(TypeDescriptor sourceType, TypeDescriptor targetType) {
+        return targetType.hasAnnotation(LegacyDuration.class);
+    }
+
+    @Override
+    public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+        if (source == null) {
+            return null;
+        }
+        return parse(source.toString());
+    }
+
+    static Duration parse(String value) {
+        String trimmed = value.trim();
+        try {
+            return DurationStyle.detectAndParse(trimmed);
+        } catch (IllegalArgumentException e) {
+            Matcher matcher = SPELLED_OUT.matcher(trimmed);
+            ChronoUnit unit = matcher.matches() ? UNITS.get(matcher.group(2).toLowerCase(Locale.ROOT)) : null;
+            if (unit == null) {
+                throw new IllegalArgumentException("'" + value + "' is not a duration, use e.g. 300m, 7d or PT5H", e);
+            }
+            return Duration.of(Long.parseLong(matcher.group(1)), unit);
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package cc.rainyctl.services.order.config;
 
+import cc.rainyctl.common.trace.TraceFilter;
+import cc.rainyctl.services.order.tuning.OrderTuningHolder;
+import cc.rainyctl.services.order.tuning.OrderTuningListener;
 import feign.Logger;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBinding;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import javax.sql.DataSource;
+
 @Configuration
 public class OrderServiceConfig {
 
@@ -20,4 +27,26 @@ public class OrderServiceConfig {
     public Logger.Level feignLoggerLevel() {
         return Logger.Level.FULL;
     }
+
+    // X-Trace-Id, Server-Timing and slow-request logging, threshold live-tunable
+    @Bean
+    public TraceFilter traceFilter(OrderTuningHolder tuning) {
+        return new TraceFilter(() -> tuning.current().getTracingSlowThreshold());
+    }
+
+    // order.timeout / order.auto-confirm as older configs wrote them (300min), see OrderServiceProperties.
+    // static: binding converters are needed before the other beans of this class
+    @Bean
+    @ConfigurationPropertiesBinding
+    public static LegacyDurationConverter legacyDurationConverter() {
+        return new LegacyDurationConverter();
+    }
+
+    // with spring.main.lazy-initialization the datasource is still built at startup,
+    // so a broken shard / datasource config fails the boot instead of the first request.
+    // tuning listeners have no dependents, lazily they would never apply the startup values
+    @Bean
+    public static LazyInitializationExcludeFilter eagerDataSource() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, OrderTuningListener.class);
+    }
 }
@@ -4,10 +4,58 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
+// bound from application.properties + Nacos (service-order.properties).
+// read it only at startup, at runtime use the OrderTuning snapshot instead,
+// which is rebuilt and validated on every Nacos change
 @Component
 @ConfigurationProperties(prefix = "order")
 @Data
 public class OrderServiceProperties {
-    private String timeout;
-    private String autoConfirm;
+    // e.g. 300m, 7d. the spelled-out 300min of older configs still binds
+    @LegacyDuration
+    private Duration timeout = Duration.ofMinutes(30);
+    @LegacyDuration
+    private Duration autoConfirm = Duration.ofDays(7);
+
+    private Feign feign = new Feign();
+    private DbPool dbPool = new DbPool();
+    private Limiter limiter = new Limiter();
+    private ProductBatch productBatch = new ProductBatch();
+    private Tracing tracing = new Tracing();
+
+    // calls to service-product
+    @Data
+    public static class Feign {
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(60);
+    }
+
+    // applied to every order database pool (all shards), 0 keeps the configured size
+    @Data
+    public static class DbPool {
+        private int maxSize;
+    }
+
+    // 0 leaves the createOrder flow rules to the Sentinel dashboard
+    @Data
+    public static class Limiter {
+        private double createOrderQps;
+    }
+
+    // product lookups of concurrent orders are sent as one batch call,
+    // after max-wait or once max-size distinct ids are collected
+    @Data
+    public static class ProductBatch {
+        private boolean enabled = true;
+        private Duration maxWait = Duration.ofMillis(2);
+        private int maxSize = 50;
+    }
+
+    // requests slower than this are logged with their spans
+    @Data
+    public static class Tracing {
+        private Duration slowThreshold = Duration.ofSeconds(1);
+    }
 }
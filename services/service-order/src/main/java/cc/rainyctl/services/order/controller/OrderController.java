@@ -1,11 +1,22 @@
 package cc.rainyctl.services.order.controller;
 
 import cc.rainyctl.entity.Order;
-import cc.rainyctl.services.order.config.OrderServiceProperties;
+import cc.rainyctl.services.order.dto.OrderPage;
+import cc.rainyctl.services.order.feign.ProductBatchLoader;
+import cc.rainyctl.services.order.service.OrderExportService;
+import cc.rainyctl.services.order.service.OrderHistoryService;
 import cc.rainyctl.services.order.service.OrderService;
+import cc.rainyctl.services.order.tuning.OrderTuningHolder;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/order")
@@ -13,7 +24,13 @@ public class OrderController {
 
     private final OrderService orderService;
 
-    private final OrderServiceProperties orderServiceProperties;
+    private final OrderHistoryService orderHistoryService;
+
+    private final OrderExportService orderExportService;
+
+    private final OrderTuningHolder orderTuningHolder;
+
+    private final ProductBatchLoader productBatchLoader;
 
     @PostMapping("/create")
     public Order createOrder(
@@ -23,9 +40,41 @@ public class OrderController {
         return orderService.createOrder(productId, userId, count);
     }
 
-    // get config from nacos
+    // order history, newest first. follow nextCursor for older orders
+    @GetMapping("/user/{userId}")
+    public OrderPage getOrdersByUser(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return orderHistoryService.getOrdersByUser(userId, cursor, size);
+    }
+
+    // reconciliation export: one order per line (NDJSON) with its items,
+    // streamed while it is read, e.g. ?from=2026-01-01T00:00:00&to=2026-02-01T00:00:00
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOrders(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        orderExportService.exportOrders(from, to, response.getOutputStream());
+    }
+
+    // scatter-gather over all order shards
+    @GetMapping("/admin/count")
+    public Map<String, Long> countOrders() {
+        return orderService.countOrdersByShard();
+    }
+
+    // achieved product batch sizes and the wait they added
+    @GetMapping("/admin/product-batch")
+    public ProductBatchLoader.Stats productBatchStats() {
+        return productBatchLoader.stats();
+    }
+
+    // get config from nacos, as currently applied
     @GetMapping("/config")
     public String getConfig() {
-        return orderServiceProperties.toString();
+        return orderTuningHolder.current().toString();
     }
 }
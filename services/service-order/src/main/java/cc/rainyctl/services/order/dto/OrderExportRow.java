@@ -0,0 +1,23 @@
+package cc.rainyctl.services.order.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// flat order + item row of the streaming export (LEFT JOIN, item columns may be null)
+@Data
+public class OrderExportRow {
+    private Long orderId;
+    private Long userId;
+    private String nickName;
+    private String address;
+    private BigDecimal totalAmount;
+    private LocalDateTime createTime;
+
+    private Long itemId;
+    private Long productId;
+    private String productName;
+    private BigDecimal productPrice;
+    private Integer num;
+}
@@ -0,0 +1,19 @@
+package cc.rainyctl.services.order.dto;
+
+import cc.rainyctl.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// one page of a user's order history, newest first
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPage {
+    private List<Order> orders;
+
+    // pass as ?cursor= to get the next page, null on the last page
+    private Long nextCursor;
+}
@@ -1,10 +1,13 @@
 package cc.rainyctl.services.order.feign;
 
+import cc.rainyctl.services.order.feign.config.ProductFeignConfig;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "service-product", contextId = "deductProductFeignClient")
+@FeignClient(name = "service-product",
+        contextId = "deductProductFeignClient",
+        configuration = ProductFeignConfig.class)
 public interface DeductProductFeignClient {
     @PostMapping("/api/product/stock/deduct")
     void deductStock(@RequestParam("productId") Long productId,
@@ -0,0 +1,301 @@
+package cc.rainyctl.services.order.feign;
+
+import cc.rainyctl.common.trace.Trace;
+import cc.rainyctl.entity.Product;
+import cc.rainyctl.services.order.tuning.OrderTuning;
+import cc.rainyctl.services.order.tuning.OrderTuningHolder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// DataLoader-style batching of product lookups across concurrent requests.
+// the first lookup opens a window; lookups of other threads join it until
+// order.product-batch.max-wait passes or max-size distinct ids are collected,
+// then one GET /api/product/batch answers all of them. the same id requested
+// twice in a window is fetched once, each caller gets its own Product instance.
+// the batch call runs on its own thread, outside the callers' Seata global
+// transactions: a product read takes no part in them. it is traced under the
+// first caller's trace id and links the other callers' ids, so each of their
+// traces shows the product-batch span and the service-product side of the call
+@Slf4j
+@Component
+public class ProductBatchLoader implements DisposableBean {
+
+    private static final int DISPATCHER_THREADS = 8;
+
+    private static final int MAX_QUEUED_BATCHES = 64;
+
+    private final ProductFeignClient productFeignClient;
+
+    private final OrderTuningHolder tuning;
+
+    // closes windows when max-wait passes
+    private final ScheduledExecutorService timer;
+
+    // runs the batch calls, several batches can be in flight. a batch that finds
+    // the queue full fails its lookups right away instead of piling up
+    private final ThreadPoolExecutor dispatcher;
+
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private Window window;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder dedupedLookups = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedIds = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicInteger maxBatchSize = new AtomicInteger();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder rejectedBatches = new LongAdder();
+
+    @Autowired
+    public ProductBatchLoader(ProductFeignClient productFeignClient, OrderTuningHolder tuning) {
+        this(productFeignClient, tuning, Executors.newSingleThreadScheduledExecutor(daemon("product-batch-timer")));
+    }
+
+    // tests hold the timer to tell a full window apart from an expired one
+    ProductBatchLoader(ProductFeignClient productFeignClient, OrderTuningHolder tuning, ScheduledExecutorService timer) {
+        this.productFeignClient = productFeignClient;
+        this.tuning = tuning;
+        this.timer = timer;
+        this.dispatcher = new ThreadPoolExecutor(DISPATCHER_THREADS, DISPATCHER_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES), daemon("product-batch"));
+    }
+
+    // blocks until the batch holding productId is answered. null when the product does not exist.
+    // the batch call itself is bounded by the Feign timeouts, the window and a queued batch are not:
+    // a lookup gives up after max-wait + connect + read timeout
+    public Product load(Long productId) {
+        OrderTuning current = tuning.current();
+        Duration timeout = current.getProductBatchMaxWait()
+                .plus(current.getFeignConnectTimeout())
+                .plus(current.getFeignReadTimeout());
+        try {
+            return loadAsync(productId).orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Product> loadAsync(Long productId) {
+        OrderTuning current = tuning.current();
+        lookups.increment();
+        if (!current.isProductBatchEnabled()) {
+            return CompletableFuture.completedFuture(productFeignClient.getProductById(productId));
+        }
+
+        Window full = null;
+        CompletableFuture<Product> result;
+        synchronized (lock) {
+            if (window == null) {
+                Window opened = new Window();
+                window = opened;
+                timer.schedule(() -> close(opened), current.getProductBatchMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            result = window.add(productId);
+            if (window.size() >= current.getProductBatchMaxSize()) {
+                full = window;
+                window = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return result;
+    }
+
+    // max-wait passed; the window may already have been sent for being full
+    private void close(Window expected) {
+        synchronized (lock) {
+            if (window != expected) {
+                return;
+            }
+            window = null;
+        }
+        dispatch(expected);
+    }
+
+    private void dispatch(Window batch) {
+        try {
+            dispatcher.execute(new BatchCall(batch));
+        } catch (RejectedExecutionException e) {
+            rejectedBatches.increment();
+            batch.fail(new IllegalStateException("Too many product batches queued, rejected " + batch.size() + " ids", e));
+        }
+    }
+
+    // one GET /api/product/batch, on a dispatcher thread
+    private class BatchCall implements Runnable {
+
+        private final Window batch;
+
+        BatchCall(Window batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            // the wait ends when the call starts: the window plus the time queued for a thread
+            recordBatch(batch, System.nanoTime());
+            if (!batch.traceIds.isEmpty()) {
+                List<String> callers = new ArrayList<>(batch.traceIds);
+                Trace.begin(callers.get(0), callers.subList(1, callers.size()));
+            }
+            try {
+                Map<Long, Product> products = new HashMap<>();
+                List<Product> found = Trace.span("product-batch", () -> productFeignClient.getProductsByIds(batch.waiters.keySet()));
+                for (Product product : found) {
+                    products.put(product.getId(), product);
+                }
+                batch.complete(products);
+            } catch (Throwable e) {
+                batch.fail(e);
+            } finally {
+                Trace.end();
+            }
+        }
+    }
+
+    private void recordBatch(Window batch, long sentAt) {
+        int size = batch.size();
+        batches.increment();
+        batchedIds.add(size);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        // every lookup waited from its own arrival until the call started
+        waitNanos.add(batch.lookups * sentAt - batch.arrivalNanosSum);
+        maxWaitNanos.accumulateAndGet(sentAt - batch.openedAt, Math::max);
+        dedupedLookups.add(batch.lookups - size);
+    }
+
+    public Stats stats() {
+        long lookupCount = lookups.sum();
+        long batchCount = batches.sum();
+        long batchedLookups = batchedIds.sum() + dedupedLookups.sum();
+        return new Stats(
+                lookupCount,
+                batchCount,
+                dedupedLookups.sum(),
+                batchCount == 0 ? 0 : (double) batchedIds.sum() / batchCount,
+                maxBatchSize.get(),
+                batchedLookups == 0 ? 0 : waitNanos.sum() / batchedLookups / 1000,
+                maxWaitNanos.get() / 1000,
+                rejectedBatches.sum());
+    }
+
+    // lookups: getProduct calls, rpcs: batch calls started, dedupedLookups: lookups that
+    // shared an id already in the window. wait: time between a lookup and its batch call
+    // starting, queueing for a dispatcher thread included. rejectedBatches: failed on a full queue
+    @Value
+    public static class Stats {
+        long lookups;
+        long rpcs;
+        long dedupedLookups;
+        double avgBatchSize;
+        int maxBatchSize;
+        long avgWaitMicros;
+        long maxWaitMicros;
+        long rejectedBatches;
+    }
+
+    // the ids collected for one batch call, guarded by lock until it is sent
+    private static class Window {
+        // one future per lookup, grouped by id
+        private final Map<Long, List<CompletableFuture<Product>>> waiters = new LinkedHashMap<>();
+        // of the lookups made inside a request, in arrival order
+        private final Set<String> traceIds = new LinkedHashSet<>();
+        private final long openedAt = System.nanoTime();
+        private long arrivalNanosSum;
+        private int lookups;
+
+        CompletableFuture<Product> add(Long productId) {
+            lookups++;
+            arrivalNanosSum += System.nanoTime();
+            Trace caller = Trace.current();
+            if (caller != null) {
+                traceIds.add(caller.getTraceId());
+            }
+            CompletableFuture<Product> future = new CompletableFuture<>();
+            waiters.computeIfAbsent(productId, id -> new ArrayList<>(1)).add(future);
+            return future;
+        }
+
+        int size() {
+            return waiters.size();
+        }
+
+        // createOrder fills in its own num/stock, so lookups of the same id must not share an instance
+        void complete(Map<Long, Product> products) {
+            waiters.forEach((id, futures) -> {
+                Product product = products.get(id);
+                for (int i = 0; i < futures.size(); i++) {
+                    futures.get(i).complete(i == 0 || product == null ? product : copy(product));
+                }
+            });
+        }
+
+        void fail(Throwable e) {
+            waiters.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+        }
+
+        private static Product copy(Product product) {
+            return new Product(product.getId(), product.getName(), product.getPrice(), product.getStock(), product.getNum());
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // lookups still in the open window or in a queued batch fail instead of waiting for their timeout
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        Window open;
+        synchronized (lock) {
+            open = window;
+            window = null;
+        }
+        IllegalStateException shutdown = new IllegalStateException("Product batch loader is shut down");
+        if (open != null) {
+            open.fail(shutdown);
+        }
+        for (Runnable queued : dispatcher.shutdownNow()) {
+            if (queued instanceof BatchCall call) {
+                call.batch.fail(shutdown);
+            }
+        }
+    }
+}
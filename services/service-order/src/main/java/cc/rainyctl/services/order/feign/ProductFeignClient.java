@@ -1,13 +1,24 @@
 package cc.rainyctl.services.order.feign;
 
 import cc.rainyctl.entity.Product;
+import cc.rainyctl.services.order.feign.config.ProductFeignConfig;
 import cc.rainyctl.services.order.feign.fallback.ProductFeignClientFallback;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "service-product", fallback = ProductFeignClientFallback.class)
+import java.util.Collection;
+import java.util.List;
+
+@FeignClient(name = "service-product",
+        configuration = ProductFeignConfig.class,
+        fallback = ProductFeignClientFallback.class)
 public interface ProductFeignClient {
     @GetMapping("/api/product/{id}")
     Product getProductById(@PathVariable("id") Long productId);
+
+    // unknown ids are missing from the result, see ProductBatchLoader
+    @GetMapping("/api/product/batch")
+    List<Product> getProductsByIds(@RequestParam("ids") Collection<Long> productIds);
 }
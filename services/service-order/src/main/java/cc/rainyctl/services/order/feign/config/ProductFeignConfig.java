@@ -0,0 +1,71 @@
+package cc.rainyctl.services.order.feign.config;
+
+import cc.rainyctl.common.trace.Trace;
+import cc.rainyctl.services.order.tuning.OrderTuningHolder;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.optionals.OptionalDecoder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// per-client config for the service-product Feign clients,
+// deliberately NOT a @Configuration so it does not leak to other clients
+public class ProductFeignConfig {
+
+    public static final String SMILE = "application/x-jackson-smile";
+
+    // prefer Smile (binary JSON), but still accept JSON so that an older
+    // service-product instance without the Smile converter keeps working
+    @Bean
+    public RequestInterceptor smileAcceptInterceptor() {
+        return template -> template.header(HttpHeaders.ACCEPT, SMILE + ", application/json;q=0.9");
+    }
+
+    // same trace id on the service-product side. a batched product lookup is sent for
+    // several requests at once: the first one's id, the others as links (see ProductBatchLoader)
+    @Bean
+    public RequestInterceptor traceIdInterceptor() {
+        return template -> {
+            Trace trace = Trace.current();
+            if (trace != null) {
+                template.header(Trace.HEADER, trace.getTraceId());
+                String links = trace.linksHeader();
+                if (links != null) {
+                    template.header(Trace.LINKS_HEADER, links);
+                }
+            }
+        };
+    }
+
+    // replaces the default decoder with one that also reads Smile; the converter is
+    // selected from the response Content-Type. an HttpMessageConverterCustomizer cannot
+    // do this: SpringDecoder hands it Boot's unmodifiable converter list on every decode
+    @Bean
+    public Decoder smileDecoder(ObjectProvider<HttpMessageConverters> messageConverters) {
+        SingletonSupplier<HttpMessageConverters> converters = SingletonSupplier.of(() -> {
+            List<HttpMessageConverter<?>> smileFirst = new ArrayList<>();
+            smileFirst.add(new MappingJackson2SmileHttpMessageConverter());
+            smileFirst.addAll(messageConverters.getObject().getConverters());
+            return new HttpMessageConverters(false, smileFirst);
+        });
+        return new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(converters::obtain)));
+    }
+
+    // timeouts from order.feign.*, re-read on every call. setting
+    // spring.cloud.openfeign.client.config.* timeouts would replace these with fixed ones
+    @Bean
+    public Request.Options tunedRequestOptions(OrderTuningHolder tuning) {
+        return new TunedRequestOptions(tuning);
+    }
+}
@@ -0,0 +1,47 @@
+package cc.rainyctl.services.order.feign.config;
+
+import cc.rainyctl.services.order.tuning.OrderTuningHolder;
+import feign.Request;
+
+import java.util.concurrent.TimeUnit;
+
+// Feign asks the options for the timeouts on every request,
+// answering from the live snapshot applies Nacos changes without rebuilding the client
+public class TunedRequestOptions extends Request.Options {
+
+    private final OrderTuningHolder tuning;
+
+    public TunedRequestOptions(OrderTuningHolder tuning) {
+        this.tuning = tuning;
+    }
+
+    @Override
+    public int connectTimeoutMillis() {
+        return (int) tuning.current().getFeignConnectTimeout().toMillis();
+    }
+
+    @Override
+    public int readTimeoutMillis() {
+        return (int) tuning.current().getFeignReadTimeout().toMillis();
+    }
+
+    @Override
+    public long connectTimeout() {
+        return connectTimeoutMillis();
+    }
+
+    @Override
+    public TimeUnit connectTimeoutUnit() {
+        return TimeUnit.MILLISECONDS;
+    }
+
+    @Override
+    public long readTimeout() {
+        return readTimeoutMillis();
+    }
+
+    @Override
+    public TimeUnit readTimeoutUnit() {
+        return TimeUnit.MILLISECONDS;
+    }
+}
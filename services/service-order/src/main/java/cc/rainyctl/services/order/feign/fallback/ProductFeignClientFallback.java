@@ -4,6 +4,9 @@ import cc.rainyctl.entity.Product;
 import cc.rainyctl.services.order.feign.ProductFeignClient;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
+
 @Component
 public class ProductFeignClientFallback implements ProductFeignClient {
     @Override
@@ -13,4 +16,14 @@ public class ProductFeignClientFallback implements ProductFeignClient {
         product.setName("Product Not Found");
         return product;
     }
+
+    // same placeholder, but with the requested id so the batch loader can hand each one to its caller
+    @Override
+    public List<Product> getProductsByIds(Collection<Long> productIds) {
+        return productIds.stream().map(productId -> {
+            Product product = getProductById(productId);
+            product.setId(productId);
+            return product;
+        }).toList();
+    }
 }
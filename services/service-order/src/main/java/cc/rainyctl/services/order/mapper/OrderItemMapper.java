@@ -3,7 +3,26 @@ package cc.rainyctl.services.order.mapper;
 import cc.rainyctl.entity.OrderItem;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface OrderItemMapper extends BaseMapper<OrderItem> {
+
+    // items of a whole page in one round trip (idx_order_id)
+    @Select("""
+        <script>
+        SELECT id, order_id, product_id, product_name, product_price, num
+        FROM t_order_item
+        WHERE order_id IN
+        <foreach collection="orderIds" item="orderId" open="(" separator="," close=")">
+          #{orderId}
+        </foreach>
+        ORDER BY order_id, id
+        </script>
+    """)
+    List<OrderItem> selectByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -1,9 +1,57 @@
 package cc.rainyctl.services.order.mapper;
 
 import cc.rainyctl.entity.Order;
+import cc.rainyctl.services.order.dto.OrderExportRow;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
+
+    // keyset page, newest first: the next page starts below the last id seen.
+    // served by idx_user_id (InnoDB secondary indexes carry the primary key,
+    // so it is effectively (user_id, id)) and costs the same at any depth,
+    // unlike LIMIT ... OFFSET which walks every skipped row.
+    // ORDER BY spells out the full index so no database needs a sort step
+    @Select("""
+        <script>
+        SELECT id, user_id, nick_name, address, total_amount, create_time
+        FROM t_order
+        WHERE user_id = #{userId}
+        <if test="cursor != null">
+          AND id &lt; #{cursor}
+        </if>
+        ORDER BY user_id DESC, id DESC
+        LIMIT #{limit}
+        </script>
+    """)
+    List<Order> selectPageByUser(@Param("userId") Long userId,
+                                 @Param("cursor") Long cursor,
+                                 @Param("limit") int limit);
+
+    // one row per item (or per order without items), rows of an order are
+    // adjacent. idx_create_time gives (create_time, id) order without a sort.
+    // must be consumed inside a transaction. Integer.MIN_VALUE makes MySQL stream
+    // the rows one by one for this statement only, without useCursorFetch on the
+    // shared URL; the connection runs nothing else until the cursor is closed
+    @Select("""
+        SELECT o.id AS order_id, o.user_id, o.nick_name, o.address, o.total_amount, o.create_time,
+               i.id AS item_id, i.product_id, i.product_name, i.product_price, i.num
+        FROM t_order o
+        LEFT JOIN t_order_item i ON i.order_id = o.id
+        WHERE o.create_time >= #{from}
+          AND o.create_time < #{to}
+        ORDER BY o.create_time, o.id
+    """)
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<OrderExportRow> streamByCreateTime(@Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
 }
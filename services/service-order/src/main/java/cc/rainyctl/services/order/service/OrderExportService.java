@@ -0,0 +1,12 @@
+package cc.rainyctl.services.order.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface OrderExportService {
+
+    // writes every order created in [from, to) with its items as NDJSON,
+    // returns the number of orders written
+    long exportOrders(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException;
+}
@@ -0,0 +1,9 @@
+package cc.rainyctl.services.order.service;
+
+import cc.rainyctl.services.order.dto.OrderPage;
+
+public interface OrderHistoryService {
+
+    // keyset pagination, cursor is the nextCursor of the previous page
+    OrderPage getOrdersByUser(Long userId, Long cursor, int size);
+}
@@ -2,7 +2,12 @@ package cc.rainyctl.services.order.service;
 
 import cc.rainyctl.entity.Order;
 
+import java.util.Map;
+
 public interface OrderService {
 
     Order createOrder(Long productId, Long userId, int count);
+
+    // shard name -> number of orders
+    Map<String, Long> countOrdersByShard();
 }
@@ -0,0 +1,116 @@
+package cc.rainyctl.services.order.service.impl;
+
+import cc.rainyctl.entity.Order;
+import cc.rainyctl.entity.Product;
+import cc.rainyctl.services.order.dto.OrderExportRow;
+import cc.rainyctl.services.order.mapper.OrderMapper;
+import cc.rainyctl.services.order.service.OrderExportService;
+import cc.rainyctl.services.order.shard.OrderShards;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+// streams orders from a server-side cursor straight into the response:
+// only the order being assembled is on the heap, and a slow client blocks
+// the write, which in turn stops fetching from the database
+@Slf4j
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private final OrderMapper orderMapper;
+
+    private final OrderShards orderShards;
+
+    private final ObjectMapper objectMapper;
+
+    // the cursor only lives as long as its transaction
+    private final TransactionTemplate readOnlyTransaction;
+
+    public OrderExportServiceImpl(OrderMapper orderMapper,
+                                  OrderShards orderShards,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.orderMapper = orderMapper;
+        this.orderShards = orderShards;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public long exportOrders(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+
+        long exported = 0;
+        try {
+            // one shard after the other, each in its own transaction
+            for (String shard : orderShards.shardNames()) {
+                exported += orderShards.onShard(shard, () -> readOnlyTransaction.execute(status -> exportShard(from, to, generator)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (exported > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+        log.info("Exported {} orders created in [{}, {})", exported, from, to);
+        return exported;
+    }
+
+    private long exportShard(LocalDateTime from, LocalDateTime to, JsonGenerator generator) {
+        long exported = 0;
+        try (Cursor<OrderExportRow> rows = orderMapper.streamByCreateTime(from, to)) {
+            Order current = null;
+            for (OrderExportRow row : rows) {
+                if (current == null || !current.getId().equals(row.getOrderId())) {
+                    if (current != null) {
+                        generator.writeObject(current);
+                        exported++;
+                    }
+                    current = toOrder(row);
+                }
+                if (row.getItemId() != null) {
+                    current.getProductList().add(toProduct(row));
+                }
+            }
+            if (current != null) {
+                generator.writeObject(current);
+                exported++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return exported;
+    }
+
+    private Order toOrder(OrderExportRow row) {
+        Order order = new Order();
+        order.setId(row.getOrderId());
+        order.setUserId(row.getUserId());
+        order.setNickName(row.getNickName());
+        order.setAddress(row.getAddress());
+        order.setTotalAmount(row.getTotalAmount());
+        order.setCreateTime(row.getCreateTime());
+        order.setProductList(new ArrayList<>());
+        return order;
+    }
+
+    // same shape as the productList of the other order endpoints
+    private Product toProduct(OrderExportRow row) {
+        return new Product(row.getProductId(), row.getProductName(), row.getProductPrice(), null, row.getNum());
+    }
+}
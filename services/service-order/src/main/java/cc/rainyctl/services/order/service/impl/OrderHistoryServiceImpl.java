@@ -0,0 +1,64 @@
+package cc.rainyctl.services.order.service.impl;
+
+import cc.rainyctl.entity.Order;
+import cc.rainyctl.entity.OrderItem;
+import cc.rainyctl.entity.Product;
+import cc.rainyctl.services.order.dto.OrderPage;
+import cc.rainyctl.services.order.mapper.OrderItemMapper;
+import cc.rainyctl.services.order.mapper.OrderMapper;
+import cc.rainyctl.services.order.service.OrderHistoryService;
+import cc.rainyctl.services.order.shard.OrderShards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+@Service
+public class OrderHistoryServiceImpl implements OrderHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final OrderMapper orderMapper;
+
+    private final OrderItemMapper orderItemMapper;
+
+    private final OrderShards orderShards;
+
+    @Override
+    public OrderPage getOrdersByUser(Long userId, Long cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return orderShards.onUser(userId, () -> {
+            // one extra row tells whether there is a next page
+            List<Order> orders = orderMapper.selectPageByUser(userId, cursor, limit + 1);
+            Long nextCursor = null;
+            if (orders.size() > limit) {
+                orders = orders.subList(0, limit);
+                nextCursor = orders.get(limit - 1).getId();
+            }
+            attachItems(orders);
+            return new OrderPage(orders, nextCursor);
+        });
+    }
+
+    // one IN query for the whole page instead of one query per order
+    private void attachItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        Map<Long, List<Product>> products = orderItemMapper.selectByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderItem::getOrderId,
+                        Collectors.mapping(this::toProduct, Collectors.toList())));
+        for (Order order : orders) {
+            order.setProductList(products.getOrDefault(order.getId(), List.of()));
+        }
+    }
+
+    // same shape as the productList returned by createOrder, stock unknown
+    private Product toProduct(OrderItem item) {
+        return new Product(item.getProductId(), item.getProductName(), item.getProductPrice(), null, item.getNum());
+    }
+}
@@ -1,13 +1,17 @@
 package cc.rainyctl.services.order.service.impl;
 
+import cc.rainyctl.common.trace.Trace;
 import cc.rainyctl.entity.Order;
 import cc.rainyctl.entity.OrderItem;
 import cc.rainyctl.entity.Product;
 import cc.rainyctl.services.order.feign.DeductProductFeignClient;
+import cc.rainyctl.services.order.feign.ProductBatchLoader;
 import cc.rainyctl.services.order.feign.ProductFeignClient;
 import cc.rainyctl.services.order.mapper.OrderItemMapper;
 import cc.rainyctl.services.order.mapper.OrderMapper;
 import cc.rainyctl.services.order.service.OrderService;
+import cc.rainyctl.services.order.shard.OrderShards;
+import cc.rainyctl.services.order.trace.GlobalCommitTiming;
 import com.alibaba.csp.sentinel.annotation.SentinelResource;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import lombok.RequiredArgsConstructor;
@@ -21,7 +25,9 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -42,41 +48,54 @@ public class OrderServiceImpl implements OrderService {
 
     private final DeductProductFeignClient deductProductFeignClient;
 
+    private final OrderShards orderShards;
+
+    private final ProductBatchLoader productBatchLoader;
+
     @GlobalTransactional
     @Transactional
     @SentinelResource(value = "createOrder", blockHandler = "createOrderFallback")
     @Override
     public Order createOrder(Long productId, Long userId, int count) {
+        // phases show up in the Server-Timing header and the trace ring
+        GlobalCommitTiming.register();
+
         // 1. RPC call to get product info
         // Product product = getProductFromRemote(productId);
         // Product product = getProductFromRemoteWithLoadBalancing(productId);
         // Product product = getProductFromRemoteWithLoadBalancingByAnnotation(productId);
-        Product product = getProductFromRemoteWithFeign(productId);
+        // Product product = getProductFromRemoteWithFeign(productId);
+        Product product = Trace.span("product-fetch", () -> getProductFromRemoteBatched(productId));
 
         // 2. calculate total
         BigDecimal amount = product.getPrice().multiply(new BigDecimal(count));
 
-        // 3. save order header
-        Order order = new Order();
-        order.setUserId(userId);
-        order.setNickName("DIO");
-        order.setAddress("Cairo, Egypt");
-        order.setTotalAmount(amount);
-        orderMapper.insert(order);
-        log.info("Order created: {}", order);
-
-        // 4. save order item (snapshot)
-        OrderItem item = new OrderItem();
-        item.setOrderId(order.getId());
-        item.setProductId(productId);
-        item.setProductName(product.getName());
-        item.setProductPrice(product.getPrice());
-        item.setNum(count);
-        orderItemMapper.insert(item);
-        log.info("OrderItem created: {}", item);
+        // 3. + 4. header and item go to the user's shard, in one local transaction
+        Order order = orderShards.onUser(userId, () -> {
+            // 3. save order header
+            Order header = new Order();
+            header.setUserId(userId);
+            header.setNickName("DIO");
+            header.setAddress("Cairo, Egypt");
+            header.setTotalAmount(amount);
+            header.setCreateTime(LocalDateTime.now());
+            Trace.span("order-insert", () -> orderMapper.insert(header));
+            log.info("Order created: {}", header);
+
+            // 4. save order item (snapshot)
+            OrderItem item = new OrderItem();
+            item.setOrderId(header.getId());
+            item.setProductId(productId);
+            item.setProductName(product.getName());
+            item.setProductPrice(product.getPrice());
+            item.setNum(count);
+            Trace.span("item-insert", () -> orderItemMapper.insert(item));
+            log.info("OrderItem created: {}", item);
+            return header;
+        });
 
         // 5. deduct stock
-        deductProductFeignClient.deductStock(productId, count);
+        Trace.span("stock-deduct", () -> deductProductFeignClient.deductStock(productId, count));
         log.info("Product {} stock deducted by {}", productId, count);
 
         // 6. SIMULATE ERROR HERE
@@ -86,14 +105,20 @@ public class OrderServiceImpl implements OrderService {
 //            throw new RuntimeException("Simulated unexpected crash after remote call!");
 //        }
 
-        // a better way is to separate entity from DTO
-        product.setNum(count);
-        product.setStock(product.getStock() - count); // as a snapshot
-        order.setProductList(List.of(product));
+        // a better way is to separate entity from DTO.
+        // a new snapshot, the fetched product is not ours to modify
+        order.setProductList(List.of(new Product(product.getId(), product.getName(), product.getPrice(),
+                product.getStock() - count, count)));
 
         return order;
     }
 
+    // admin query, fans out to every shard
+    @Override
+    public Map<String, Long> countOrdersByShard() {
+        return orderShards.scatter(() -> orderMapper.selectCount(null));
+    }
+
    private Order createOrderFallback(Long productId, Long userId, int count, BlockException e) {
         Order order = new Order();
         order.setNickName("sad DIO");
@@ -129,4 +154,11 @@ public class OrderServiceImpl implements OrderService {
         log.info("Product from Feign: {}", product);
         return product;
     }
+
+    // Feign, batched with the lookups of concurrent orders
+    private Product getProductFromRemoteBatched(Long productId) {
+        Product product = productBatchLoader.load(productId);
+        log.info("Product from batch: {}", product);
+        return product;
+    }
 }
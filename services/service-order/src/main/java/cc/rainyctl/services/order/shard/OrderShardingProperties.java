@@ -0,0 +1,36 @@
+package cc.rainyctl.services.order.shard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// t_order / t_order_item split by userId:
+// bucket = userId mod buckets, each bucket belongs to exactly one shard
+@Component
+@ConfigurationProperties(prefix = "order.sharding")
+@Data
+public class OrderShardingProperties {
+
+    // off -> the single spring.datasource, as before
+    private boolean enabled = false;
+
+    // virtual buckets, fixed for the lifetime of the data
+    private int buckets = 1024;
+
+    // shard name -> connection and owned buckets, in declaration order
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+
+        // e.g. "0-511" or "0-255,768-1023",
+        // leave empty on all shards to split the buckets evenly
+        private String buckets;
+    }
+}
@@ -0,0 +1,100 @@
+package cc.rainyctl.services.order.shard;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// entry point for order data access:
+// onUser() for everything owned by one user, scatter()/gather() for admin
+// queries across all shards. with sharding disabled there is a single
+// "default" shard and both simply run the query
+@Component
+public class OrderShards implements DisposableBean {
+
+    private final ShardMap shardMap;
+
+    private final ExecutorService executor;
+
+    public OrderShards(OrderShardingProperties properties) {
+        this.shardMap = properties.isEnabled() ? ShardMap.of(properties) : ShardMap.single();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shardMap.shardNames().size(), r -> {
+            Thread thread = new Thread(r, "order-shard-scatter-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<String> shardNames() {
+        return shardMap.shardNames();
+    }
+
+    public String shardFor(Long userId) {
+        return shardMap.shardFor(userId);
+    }
+
+    // order header and items of a user always live on the same shard,
+    // so they can be written in one local transaction
+    public <T> T onUser(Long userId, Supplier<T> action) {
+        return ShardRouting.onShard(shardMap.shardFor(userId), action);
+    }
+
+    // for work that walks the shards one by one, e.g. the order export
+    public <T> T onShard(String shard, Supplier<T> action) {
+        return ShardRouting.onShard(shard, action);
+    }
+
+    // runs the query on every shard in parallel, outside any transaction,
+    // results keyed by shard name in shard order
+    public <T> Map<String, T> scatter(Supplier<T> query) {
+        List<String> names = shardMap.shardNames();
+        Map<String, T> results = new LinkedHashMap<>();
+        if (names.size() == 1) {
+            results.put(names.get(0), ShardRouting.onShard(names.get(0), query));
+            return results;
+        }
+
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        for (String name : names) {
+            futures.put(name, CompletableFuture.supplyAsync(() -> ShardRouting.onShard(name, query), executor));
+        }
+        for (Map.Entry<String, CompletableFuture<T>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), join(entry.getValue()));
+        }
+        return results;
+    }
+
+    // scatter() flattened into one list, in shard order
+    public <T> List<T> gather(Supplier<? extends Collection<? extends T>> query) {
+        List<T> all = new ArrayList<>();
+        scatter(query).values().forEach(all::addAll);
+        return all;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
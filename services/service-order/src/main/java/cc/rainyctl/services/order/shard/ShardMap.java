@@ -0,0 +1,92 @@
+package cc.rainyctl.services.order.shard;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// userId -> bucket -> shard name, validated once at startup
+public final class ShardMap {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    private final String[] bucketToShard;
+
+    private final List<String> shardNames;
+
+    private ShardMap(String[] bucketToShard, List<String> shardNames) {
+        this.bucketToShard = bucketToShard;
+        this.shardNames = List.copyOf(shardNames);
+    }
+
+    // everything on one shard, used when sharding is disabled
+    public static ShardMap single() {
+        return new ShardMap(new String[]{DEFAULT_SHARD}, List.of(DEFAULT_SHARD));
+    }
+
+    public static ShardMap of(OrderShardingProperties properties) {
+        Map<String, OrderShardingProperties.Shard> shards = properties.getShards();
+        int buckets = properties.getBuckets();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("order.sharding.shards must not be empty");
+        }
+        if (buckets < shards.size()) {
+            throw new IllegalStateException("order.sharding.buckets must be at least the number of shards");
+        }
+
+        List<String> names = new ArrayList<>(shards.keySet());
+        String[] bucketToShard = new String[buckets];
+        long explicit = shards.values().stream().filter(s -> StringUtils.hasText(s.getBuckets())).count();
+        if (explicit == 0) {
+            // contiguous, even ranges in declaration order
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                bucketToShard[bucket] = names.get((int) ((long) bucket * names.size() / buckets));
+            }
+        } else if (explicit == names.size()) {
+            for (String name : names) {
+                assign(bucketToShard, name, shards.get(name).getBuckets());
+            }
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                if (bucketToShard[bucket] == null) {
+                    throw new IllegalStateException("Bucket " + bucket + " is not assigned to any shard");
+                }
+            }
+        } else {
+            throw new IllegalStateException("Either all or none of the shards must declare their buckets");
+        }
+        return new ShardMap(bucketToShard, names);
+    }
+
+    private static void assign(String[] bucketToShard, String shard, String spec) {
+        for (String range : spec.split(",")) {
+            String[] bounds = range.trim().split("-");
+            int from = Integer.parseInt(bounds[0].trim());
+            int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+            if (from < 0 || to >= bucketToShard.length || from > to) {
+                throw new IllegalStateException("Invalid bucket range '" + range + "' for shard " + shard);
+            }
+            for (int bucket = from; bucket <= to; bucket++) {
+                if (bucketToShard[bucket] != null) {
+                    throw new IllegalStateException("Bucket " + bucket + " is assigned to both "
+                            + bucketToShard[bucket] + " and " + shard);
+                }
+                bucketToShard[bucket] = shard;
+            }
+        }
+    }
+
+    public String shardFor(long userId) {
+        return bucketToShard[Math.floorMod(userId, bucketToShard.length)];
+    }
+
+    public List<String> shardNames() {
+        return shardNames;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardMap" + shardNames + " over " + bucketToShard.length + " buckets " + Arrays.toString(bucketToShard);
+    }
+}
@@ -0,0 +1,31 @@
+package cc.rainyctl.services.order.shard;
+
+import java.util.function.Supplier;
+
+// the shard of the current thread, read by ShardRoutingDataSource
+// when a connection is actually fetched
+public final class ShardRouting {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T onShard(String shard, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
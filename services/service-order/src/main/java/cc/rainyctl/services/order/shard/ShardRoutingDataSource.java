@@ -0,0 +1,17 @@
+package cc.rainyctl.services.order.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// no default target on purpose: touching t_order without
+// picking a shard first is a bug, not something to guess
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardRouting.current();
+        if (shard == null) {
+            throw new IllegalStateException("No order shard selected, wrap the call in OrderShards.onUser/scatter");
+        }
+        return shard;
+    }
+}
@@ -0,0 +1,33 @@
+package cc.rainyctl.services.order.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+
+// lazy on top of the router: @Transactional opens the transaction before
+// the service knows the userId, the physical connection (and so the shard)
+// is only picked on the first statement.
+// everything after that statement stays on the same connection,
+// so one transaction never spans two shards
+public class ShardingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final Collection<HikariDataSource> pools;
+
+    public ShardingDataSource(ShardRoutingDataSource router, Collection<HikariDataSource> pools) {
+        super(router);
+        this.pools = List.copyOf(pools);
+    }
+
+    // one per shard, for runtime pool resizing
+    public Collection<HikariDataSource> getPools() {
+        return pools;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
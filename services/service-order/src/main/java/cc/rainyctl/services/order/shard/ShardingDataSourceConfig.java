@@ -0,0 +1,60 @@
+package cc.rainyctl.services.order.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.seata.rm.datasource.DataSourceProxy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+// replaces the auto-configured DataSource only when sharding is enabled
+@Configuration
+@ConditionalOnProperty(prefix = "order.sharding", name = "enabled", havingValue = "true")
+public class ShardingDataSourceConfig {
+
+    // every shard is its own Seata AT resource, so undo logs and rollbacks
+    // hit the right database. ShardingDataSource itself is excluded from
+    // auto-proxying in application.properties
+    @Bean
+    public DataSource dataSource(OrderShardingProperties properties) {
+        return create(properties, DataSourceProxy::new);
+    }
+
+    public static ShardingDataSource create(OrderShardingProperties properties, UnaryOperator<DataSource> wrapper) {
+        ShardMap shardMap = ShardMap.of(properties);
+        Map<Object, Object> targets = new HashMap<>();
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String name : shardMap.shardNames()) {
+            OrderShardingProperties.Shard shard = properties.getShards().get(name);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            pool.setPoolName("order-shard-" + name);
+            pools.add(pool);
+            targets.put(name, wrapper.apply(pool));
+        }
+
+        ShardRoutingDataSource router = new ShardRoutingDataSource();
+        router.setTargetDataSources(targets);
+        router.afterPropertiesSet();
+
+        ShardingDataSource dataSource = new ShardingDataSource(router, pools);
+        // auto-commit/isolation defaults are read from a real connection,
+        // which needs a shard; all shards are expected to share them
+        ShardRouting.onShard(shardMap.shardNames().get(0), () -> {
+            dataSource.checkDefaultConnectionProperties();
+            return null;
+        });
+        return dataSource;
+    }
+}
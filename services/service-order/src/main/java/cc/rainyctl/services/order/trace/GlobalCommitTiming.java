@@ -0,0 +1,37 @@
+package cc.rainyctl.services.order.trace;
+
+import cc.rainyctl.common.trace.Trace;
+import org.apache.seata.core.context.RootContext;
+import org.apache.seata.tm.api.transaction.TransactionHookAdapter;
+import org.apache.seata.tm.api.transaction.TransactionHookManager;
+
+// the Seata global commit happens after the @GlobalTransactional method returned,
+// outside anything the method itself can time. the TM calls these hooks around it
+public class GlobalCommitTiming extends TransactionHookAdapter {
+
+    private final Trace trace;
+
+    private long start;
+
+    private GlobalCommitTiming(Trace trace) {
+        this.trace = trace;
+    }
+
+    // call inside the global transaction; hooks are per thread and cleared by Seata when it ends
+    public static void register() {
+        Trace trace = Trace.current();
+        if (trace != null && RootContext.inGlobalTransaction()) {
+            TransactionHookManager.registerHook(new GlobalCommitTiming(trace));
+        }
+    }
+
+    @Override
+    public void beforeCommit() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void afterCommit() {
+        trace.record("global-commit", start, System.nanoTime());
+    }
+}
@@ -0,0 +1,45 @@
+package cc.rainyctl.services.order.tuning;
+
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// QPS limit of the createOrder Sentinel resource. rules of other resources
+// (e.g. pushed from the dashboard) are kept as they are
+@Slf4j
+@Component
+public class CreateOrderLimiterTuner implements OrderTuningListener {
+
+    static final String RESOURCE = "createOrder";
+
+    // whether the current createOrder rule came from here, only then is it removed again at 0
+    private boolean installed;
+
+    public CreateOrderLimiterTuner(OrderTuningHolder tuning) {
+        apply(tuning.current());
+    }
+
+    @Override
+    public synchronized void apply(OrderTuning tuning) {
+        double qps = tuning.getCreateOrderQps();
+        if (qps == 0 && !installed) {
+            return;
+        }
+        List<FlowRule> rules = new ArrayList<>(FlowRuleManager.getRules());
+        rules.removeIf(rule -> RESOURCE.equals(rule.getResource()));
+        if (qps > 0) {
+            FlowRule rule = new FlowRule(RESOURCE);
+            rule.setGrade(RuleConstant.FLOW_GRADE_QPS);
+            rule.setCount(qps);
+            rules.add(rule);
+        }
+        FlowRuleManager.loadRules(rules);
+        installed = qps > 0;
+        log.info("Flow rule for {}: {}", RESOURCE, installed ? qps + " qps" : "removed");
+    }
+}
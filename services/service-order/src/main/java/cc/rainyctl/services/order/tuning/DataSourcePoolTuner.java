@@ -0,0 +1,83 @@
+package cc.rainyctl.services.order.tuning;
+
+import cc.rainyctl.services.order.shard.ShardingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// resizes the order database pools (every shard when sharded). Hikari takes
+// a new maximum while running: extra connections are closed once returned.
+// at 0 every pool goes back to the size it was configured with
+@Slf4j
+@Component
+public class DataSourcePoolTuner implements OrderTuningListener {
+
+    // pool -> size before any tuning was applied
+    private final Map<HikariDataSource, PoolSize> configured = new LinkedHashMap<>();
+
+    public DataSourcePoolTuner(DataSource dataSource, OrderTuningHolder tuning) {
+        for (HikariDataSource pool : pools(dataSource)) {
+            configured.put(pool, PoolSize.of(pool));
+        }
+        apply(tuning.current());
+    }
+
+    @Override
+    public synchronized void apply(OrderTuning tuning) {
+        int maxSize = tuning.getDbPoolMaxSize();
+        configured.forEach((pool, size) -> resize(pool, maxSize == 0 ? size : size.withMaximum(maxSize)));
+    }
+
+    private static void resize(HikariDataSource pool, PoolSize size) {
+        PoolSize current = PoolSize.of(pool);
+        if (current.equals(size)) {
+            return;
+        }
+        log.info("Pool {} maximum size {} -> {}, minimum idle {} -> {}", pool.getPoolName(),
+                current.maximum(), size.maximum(), current.minimumIdle(), size.minimumIdle());
+        // shrink the idle floor first and raise it last, so it never exceeds the maximum
+        if (size.maximum() < current.maximum()) {
+            pool.setMinimumIdle(size.minimumIdle());
+            pool.setMaximumPoolSize(size.maximum());
+        } else {
+            pool.setMaximumPoolSize(size.maximum());
+            pool.setMinimumIdle(size.minimumIdle());
+        }
+    }
+
+    record PoolSize(int maximum, int minimumIdle) {
+
+        // an unset minimumIdle (-1 until the pool starts) follows the maximum, as in Hikari
+        static PoolSize of(HikariDataSource pool) {
+            int maximum = pool.getMaximumPoolSize();
+            int minimumIdle = pool.getMinimumIdle();
+            return new PoolSize(maximum, minimumIdle < 0 || minimumIdle > maximum ? maximum : minimumIdle);
+        }
+
+        PoolSize withMaximum(int maximum) {
+            return new PoolSize(maximum, Math.min(minimumIdle, maximum));
+        }
+    }
+    // the sharding router can only be unwrapped once a shard is selected, ask for the pools instead
+    private static Collection<HikariDataSource> pools(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(ShardingDataSource.class)) {
+                return dataSource.unwrap(ShardingDataSource.class).getPools();
+            }
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return List.of(dataSource.unwrap(HikariDataSource.class));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot unwrap the order DataSource", e);
+        }
+        log.warn("Order DataSource {} is not a Hikari pool, order.db-pool.* is ignored", dataSource.getClass().getName());
+        return List.of();
+    }
+}
@@ -0,0 +1,89 @@
+package cc.rainyctl.services.order.tuning;
+
+import cc.rainyctl.services.order.config.OrderServiceProperties;
+import lombok.Value;
+
+import java.time.Duration;
+
+// immutable snapshot of the runtime tunables, swapped as a whole so a reader
+// never sees half of an update (e.g. a new connect timeout with the old read timeout)
+@Value
+public class OrderTuning {
+    Duration timeout;
+    Duration autoConfirm;
+    Duration feignConnectTimeout;
+    Duration feignReadTimeout;
+    int dbPoolMaxSize;
+    double createOrderQps;
+    boolean productBatchEnabled;
+    Duration productBatchMaxWait;
+    int productBatchMaxSize;
+    Duration tracingSlowThreshold;
+
+    // service-product rejects larger batches
+    private static final int MAX_PRODUCT_BATCH_SIZE = 200;
+
+    // the batch window is added to every product lookup
+    private static final Duration MAX_PRODUCT_BATCH_WAIT = Duration.ofSeconds(1);
+
+    // throws IllegalArgumentException on the first invalid value
+    public static OrderTuning of(OrderServiceProperties properties) {
+        OrderServiceProperties.Feign feign = properties.getFeign();
+        OrderServiceProperties.ProductBatch productBatch = properties.getProductBatch();
+        return new OrderTuning(
+                positive("order.timeout", properties.getTimeout()),
+                positive("order.auto-confirm", properties.getAutoConfirm()),
+                millis("order.feign.connect-timeout", feign.getConnectTimeout()),
+                millis("order.feign.read-timeout", feign.getReadTimeout()),
+                notNegative("order.db-pool.max-size", properties.getDbPool().getMaxSize()),
+                notNegative("order.limiter.create-order-qps", properties.getLimiter().getCreateOrderQps()),
+                productBatch.isEnabled(),
+                between("order.product-batch.max-wait", productBatch.getMaxWait(), Duration.ZERO, MAX_PRODUCT_BATCH_WAIT),
+                between("order.product-batch.max-size", productBatch.getMaxSize(), 1, MAX_PRODUCT_BATCH_SIZE),
+                positive("order.tracing.slow-threshold", properties.getTracing().getSlowThreshold()));
+    }
+
+    private static Duration positive(String name, Duration value) {
+        if (value == null || value.isNegative() || value.isZero()) {
+            throw new IllegalArgumentException(name + " must be positive, got " + value);
+        }
+        return value;
+    }
+
+    // Feign takes int milliseconds
+    private static Duration millis(String name, Duration value) {
+        positive(name, value);
+        if (value.toMillis() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(name + " is too large, got " + value);
+        }
+        return value;
+    }
+
+    private static Duration between(String name, Duration value, Duration min, Duration max) {
+        if (value == null || value.compareTo(min) < 0 || value.compareTo(max) > 0) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max + ", got " + value);
+        }
+        return value;
+    }
+
+    private static int between(String name, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max + ", got " + value);
+        }
+        return value;
+    }
+
+    private static int notNegative(String name, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative, got " + value);
+        }
+        return value;
+    }
+
+    private static double notNegative(String name, double value) {
+        if (!(value >= 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(name + " must be a finite number >= 0, got " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,117 @@
+package cc.rainyctl.services.order.tuning;
+
+import cc.rainyctl.services.order.config.LegacyDurationConverter;
+import cc.rainyctl.services.order.config.OrderServiceProperties;
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// holds the current OrderTuning. hot paths call current(), a single volatile read.
+// updates come from the Nacos listener: the new content is bound and validated
+// into a fresh snapshot, which replaces the old one in one write; an invalid
+// update is logged and dropped, the previous snapshot stays
+@Slf4j
+@Component
+public class OrderTuningHolder implements DisposableBean {
+
+    // the conversions of the startup binding, including the registered LegacyDurationConverter
+    private static final ApplicationConversionService CONVERSION = new ApplicationConversionService();
+
+    static {
+        CONVERSION.addConverter(new LegacyDurationConverter());
+    }
+
+    private final ConfigurableEnvironment environment;
+
+    private final ObjectProvider<OrderTuningListener> listeners;
+
+    // one thread for all config callbacks: updates are applied in the order they arrive
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "order-tuning");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile OrderTuning current;
+
+    public OrderTuningHolder(OrderServiceProperties properties, ConfigurableEnvironment environment,
+                             ObjectProvider<OrderTuningListener> listeners) {
+        this.environment = environment;
+        this.listeners = listeners;
+        // a bad local/Nacos config at startup fails the boot
+        this.current = OrderTuning.of(properties);
+    }
+
+    public OrderTuning current() {
+        return current;
+    }
+
+    // shared by the config listeners, see OrderMainApplication
+    public Executor executor() {
+        return executor;
+    }
+
+    // configInfo: full content of service-order.properties in Nacos.
+    // keys it does not set fall back to the local configuration and the defaults
+    public boolean update(String configInfo) {
+        OrderTuning next;
+        try {
+            next = OrderTuning.of(bind(configInfo));
+        } catch (RuntimeException | IOException e) {
+            log.warn("Rejected order tuning update, keeping {}: {}", current, e.getMessage());
+            return false;
+        }
+        if (next.equals(current)) {
+            return true;
+        }
+        log.info("Order tuning changed from {} to {}", current, next);
+        current = next;
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.apply(next);
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply order tuning to {}", listener.getClass().getSimpleName(), e);
+            }
+        });
+        return true;
+    }
+
+    private OrderServiceProperties bind(String configInfo) throws IOException {
+        Properties properties = new Properties();
+        if (configInfo != null) {
+            properties.load(new StringReader(configInfo));
+        }
+        // the environment still holds the Nacos content seen at startup (or at the last
+        // refresh), which would bring back keys that have since been removed from Nacos
+        List<PropertySource<?>> local = environment.getPropertySources().stream()
+                .filter(source -> !(source instanceof NacosPropertySource))
+                .toList();
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        sources.add(new MapConfigurationPropertySource(properties));
+        ConfigurationPropertySources.from(local).forEach(sources::add);
+        return new Binder(sources, null, CONVERSION).bindOrCreate("order", OrderServiceProperties.class);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
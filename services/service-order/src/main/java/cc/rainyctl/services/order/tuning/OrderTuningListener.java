@@ -0,0 +1,9 @@
+package cc.rainyctl.services.order.tuning;
+
+// a component that has to push tuning values into something it does not
+// read per call (pools, rule managers). called on the tuning executor,
+// once per accepted update
+public interface OrderTuningListener {
+
+    void apply(OrderTuning tuning);
+}
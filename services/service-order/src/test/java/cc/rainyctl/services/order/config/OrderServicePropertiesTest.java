@@ -0,0 +1,59 @@
+package cc.rainyctl.services.order.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBinding;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// startup binding of order.timeout / order.auto-confirm, Nacos content included:
+// Duration fields since the tuning snapshot, strings before
+public class OrderServicePropertiesTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(Binding.class);
+
+    @Configuration
+    @EnableConfigurationProperties(OrderServiceProperties.class)
+    static class Binding {
+        @Bean
+        @ConfigurationPropertiesBinding
+        static LegacyDurationConverter legacyDurationConverter() {
+            return OrderServiceConfig.legacyDurationConverter();
+        }
+    }
+
+    @Test
+    public void testDurationFormats() {
+        runner.withPropertyValues("order.timeout=300m", "order.auto-confirm=P7D")
+                .run(context -> {
+                    OrderServiceProperties properties = context.getBean(OrderServiceProperties.class);
+                    assertThat(properties.getTimeout()).isEqualTo(Duration.ofMinutes(300));
+                    assertThat(properties.getAutoConfirm()).isEqualTo(Duration.ofDays(7));
+                });
+    }
+
+    @Test
+    public void testLegacyFormats() {
+        runner.withPropertyValues("order.timeout=300min", "order.auto-confirm=7 Days")
+                .run(context -> {
+                    OrderServiceProperties properties = context.getBean(OrderServiceProperties.class);
+                    assertThat(properties.getTimeout()).isEqualTo(Duration.ofMinutes(300));
+                    assertThat(properties.getAutoConfirm()).isEqualTo(Duration.ofDays(7));
+                });
+    }
+
+    // the boot fails on the key, with the forms it accepts
+    @Test
+    public void testUnknownFormat() {
+        runner.withPropertyValues("order.timeout=five hours")
+                .run(context -> assertThat(context).getFailure()
+                        .hasStackTraceContaining("order.timeout")
+                        .hasStackTraceContaining("'five hours' is not a duration, use e.g. 300m, 7d or PT5H"));
+    }
+}
@@ -0,0 +1,369 @@
+package cc.rainyctl.services.order.feign;
+
+import cc.rainyctl.common.trace.Span;
+import cc.rainyctl.common.trace.Trace;
+import cc.rainyctl.entity.Product;
+import cc.rainyctl.services.order.config.OrderServiceProperties;
+import cc.rainyctl.services.order.tuning.OrderTuningHolder;
+import cc.rainyctl.services.order.tuning.OrderTuningListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// service-product replaced by an in-memory client with a fixed latency per call
+public class ProductBatchLoaderTest {
+
+    private static final long HOT_SKUS = 20;
+
+    private final FakeProductClient client = new FakeProductClient();
+
+    private OrderTuningHolder tuning;
+
+    private ProductBatchLoader loader;
+
+    private void start(boolean enabled, Duration maxWait, int maxSize) {
+        start(enabled, maxWait, maxSize, new OrderServiceProperties());
+    }
+
+    private void start(boolean enabled, Duration maxWait, int maxSize, OrderServiceProperties properties) {
+        start(enabled, maxWait, maxSize, properties, Executors.newSingleThreadScheduledExecutor());
+    }
+
+    private void start(boolean enabled, Duration maxWait, int maxSize, OrderServiceProperties properties,
+                       ScheduledExecutorService timer) {
+        properties.getProductBatch().setEnabled(enabled);
+        properties.getProductBatch().setMaxWait(maxWait);
+        properties.getProductBatch().setMaxSize(maxSize);
+        tuning = new OrderTuningHolder(properties, new MockEnvironment(),
+                new DefaultListableBeanFactory().getBeanProvider(OrderTuningListener.class));
+        loader = new ProductBatchLoader(client, tuning, timer);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loader.destroy();
+        tuning.destroy();
+    }
+
+    @Test
+    public void testWindowDedupesIds() {
+        start(true, Duration.ofMillis(50), 50);
+
+        CompletableFuture<Product> a = loader.loadAsync(1L);
+        CompletableFuture<Product> b = loader.loadAsync(1L);
+        CompletableFuture<Product> c = loader.loadAsync(2L);
+
+        assertEquals(1L, a.join().getId());
+        // same product, but each caller may modify its own copy
+        assertEquals(a.join(), b.join());
+        assertNotSame(a.join(), b.join());
+        assertEquals(2L, c.join().getId());
+        assertEquals(1, client.batchCalls.get());
+        assertEquals(List.of(Set.of(1L, 2L)), client.batches);
+        assertEquals(1, loader.stats().getDedupedLookups());
+    }
+
+    // the max-wait timer is held, so only a full window can have been sent
+    @Test
+    public void testFullWindowIsSentWithoutWaiting() throws Exception {
+        CountDownLatch timerHeld = new CountDownLatch(1);
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        timer.execute(() -> await(timerHeld));
+        start(true, Duration.ofSeconds(1), 4, new OrderServiceProperties(), timer);
+
+        List<CompletableFuture<Product>> results = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            results.add(loader.loadAsync(id));
+        }
+        // bounds a broken loader, a working one answers right away
+        CompletableFuture.allOf(results.subList(0, 4).toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(Set.of(1L, 2L, 3L, 4L)), client.batches);
+        assertEquals(4, loader.stats().getMaxBatchSize());
+        // the fifth opened the next window, which waits for the timer
+        assertFalse(results.get(4).isDone());
+
+        timerHeld.countDown();
+        assertEquals(5L, results.get(4).get(10, TimeUnit.SECONDS).getId());
+        assertEquals(2, client.batchCalls.get());
+    }
+
+    // what the Feign interceptor sends as X-Trace-Id / X-Trace-Links
+    @Test
+    public void testBatchCarriesCallerTraces() {
+        start(true, Duration.ofMillis(50), 50);
+
+        List<CompletableFuture<Product>> results = new ArrayList<>();
+        try {
+            for (String caller : List.of("caller-a", "caller-b", "caller-a", "caller-c")) {
+                Trace.begin(caller);
+                results.add(loader.loadAsync((long) results.size() + 1));
+            }
+        } finally {
+            Trace.end();
+        }
+        // outside a request: joins the batch, adds no trace
+        results.add(loader.loadAsync(5L));
+        results.forEach(CompletableFuture::join);
+
+        assertEquals(List.of(List.of("caller-a", "caller-b", "caller-c")), client.batchTraces);
+        for (String caller : List.of("caller-a", "caller-b", "caller-c")) {
+            assertEquals(List.of("product-batch"), Trace.ring().find(caller).stream().map(Span::getName).toList());
+        }
+    }
+
+    @Test
+    public void testMissingProductAndFailure() {
+        start(true, Duration.ofMillis(5), 50);
+
+        assertNull(loader.load(FakeProductClient.MISSING));
+
+        client.failing = true;
+        CompletableFuture<Product> a = loader.loadAsync(1L);
+        CompletableFuture<Product> b = loader.loadAsync(2L);
+        assertThrows(IllegalStateException.class, () -> loader.load(3L));
+        assertTrue(a.isCompletedExceptionally());
+        assertTrue(b.isCompletedExceptionally());
+    }
+
+    // 8 dispatcher threads stuck in slow calls, the 9th batch waits for a thread
+    @Test
+    public void testQueuedTimeCountsAsWait() throws Exception {
+        start(true, Duration.ofMillis(5), 1);
+        client.gate = new CountDownLatch(1);
+
+        List<CompletableFuture<Product>> results = new ArrayList<>();
+        for (long id = 1; id <= 9; id++) {
+            results.add(loader.loadAsync(id));
+        }
+        Thread.sleep(100);
+        client.gate.countDown();
+        results.forEach(CompletableFuture::join);
+
+        assertEquals(9, loader.stats().getRpcs());
+        assertTrue(loader.stats().getMaxWaitMicros() >= 100_000, loader.stats().toString());
+    }
+
+    @Test
+    public void testFullQueueRejectsBatch() {
+        start(true, Duration.ofMillis(5), 1);
+        client.gate = new CountDownLatch(1);
+
+        // 8 running + 64 queued
+        List<CompletableFuture<Product>> results = new ArrayList<>();
+        for (long id = 1; id <= 72; id++) {
+            results.add(loader.loadAsync(id));
+        }
+        CompletableFuture<Product> rejected = loader.loadAsync(73L);
+
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, loader.stats().getRejectedBatches());
+
+        client.gate.countDown();
+        results.forEach(CompletableFuture::join);
+    }
+
+    // a hanging call is cut by the Feign timeouts; here the fake client ignores them
+    @Test
+    public void testLoadTimesOut() {
+        OrderServiceProperties properties = new OrderServiceProperties();
+        properties.getFeign().setConnectTimeout(Duration.ofMillis(50));
+        properties.getFeign().setReadTimeout(Duration.ofMillis(50));
+        start(true, Duration.ofMillis(5), 50, properties);
+        client.gate = new CountDownLatch(1);
+
+        CompletionException e = assertThrows(CompletionException.class, () -> loader.load(1L));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        client.gate.countDown();
+    }
+
+    @Test
+    public void testShutdownFailsQueuedLookups() {
+        start(true, Duration.ofMillis(5), 1);
+        client.gate = new CountDownLatch(1);
+
+        List<CompletableFuture<Product>> running = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            running.add(loader.loadAsync(id));
+        }
+        CompletableFuture<Product> queued = loader.loadAsync(9L);
+
+        loader.destroy();
+
+        CompletionException e = assertThrows(CompletionException.class, queued::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        client.gate.countDown();
+    }
+
+    @Test
+    public void testDisabledCallsDirectly() {
+        start(false, Duration.ofMillis(5), 50);
+
+        assertEquals(1L, loader.load(1L).getId());
+        assertEquals(1L, loader.load(1L).getId());
+
+        assertEquals(2, client.singleCalls.get());
+        assertEquals(0, client.batchCalls.get());
+    }
+
+    // 64 concurrent "createOrder" threads over 20 hot SKUs
+    @Test
+    public void testFewerUpstreamCallsUnderLoad() throws Exception {
+        int threads = 64;
+        int lookupsPerThread = 50;
+
+        start(false, Duration.ofMillis(2), 50);
+        long directMillis = runLoad(threads, lookupsPerThread);
+        int directRpcs = client.singleCalls.get() + client.batchCalls.get();
+        loader.destroy();
+        tuning.destroy();
+
+        client.reset();
+        start(true, Duration.ofMillis(2), 50);
+        long batchedMillis = runLoad(threads, lookupsPerThread);
+        int batchedRpcs = client.singleCalls.get() + client.batchCalls.get();
+        ProductBatchLoader.Stats stats = loader.stats();
+
+        int lookups = threads * lookupsPerThread;
+        System.out.printf("lookups: %d, upstream latency: %d ms%n", lookups, FakeProductClient.LATENCY_MILLIS);
+        System.out.printf("direct : %5d rpcs, %5d ms%n", directRpcs, directMillis);
+        System.out.printf("batched: %5d rpcs, %5d ms, %s%n", batchedRpcs, batchedMillis, stats);
+
+        assertEquals(lookups, directRpcs);
+        assertEquals(lookups, stats.getLookups());
+        // every thread has at most one lookup pending, so a window holds at most 20 ids
+        assertTrue(stats.getMaxBatchSize() <= HOT_SKUS);
+        assertTrue(batchedRpcs * 5 < directRpcs, "batched " + batchedRpcs + " vs direct " + directRpcs);
+    }
+
+    private long runLoad(int threads, int lookupsPerThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < lookupsPerThread; i++) {
+                    long id = ThreadLocalRandom.current().nextLong(1, HOT_SKUS + 1);
+                    assertEquals(id, loader.load(id).getId());
+                }
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        go.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class FakeProductClient implements ProductFeignClient {
+
+        static final long LATENCY_MILLIS = 5;
+
+        static final long MISSING = 404L;
+
+        final AtomicInteger singleCalls = new AtomicInteger();
+
+        final AtomicInteger batchCalls = new AtomicInteger();
+
+        final List<Set<Long>> batches = new ArrayList<>();
+
+        // trace id and links each batch call was made under, empty outside a trace
+        final List<List<String>> batchTraces = new ArrayList<>();
+
+        volatile boolean failing;
+
+        // when set, batch calls hang until it is counted down
+        volatile CountDownLatch gate;
+
+        @Override
+        public Product getProductById(Long productId) {
+            singleCalls.incrementAndGet();
+            sleep();
+            return productId == MISSING ? null : product(productId);
+        }
+
+        @Override
+        public List<Product> getProductsByIds(Collection<Long> productIds) {
+            batchCalls.incrementAndGet();
+            Trace trace = Trace.current();
+            List<String> traceIds = new ArrayList<>();
+            if (trace != null) {
+                traceIds.add(trace.getTraceId());
+                traceIds.addAll(trace.getLinks());
+            }
+            synchronized (batches) {
+                batches.add(Set.copyOf(productIds));
+                batchTraces.add(traceIds);
+            }
+            sleep();
+            CountDownLatch hold = gate;
+            if (hold != null) {
+                await(hold);
+            }
+            if (failing) {
+                throw new IllegalStateException("service-product is down");
+            }
+            return productIds.stream().filter(id -> id != MISSING).map(FakeProductClient::product).toList();
+        }
+
+        void reset() {
+            singleCalls.set(0);
+            batchCalls.set(0);
+            batches.clear();
+            batchTraces.clear();
+            gate = null;
+        }
+
+        private static Product product(Long id) {
+            return new Product(id, "product-" + id, new BigDecimal("9.99"), 100, null);
+        }
+
+        private static void sleep() {
+            try {
+                Thread.sleep(LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cc.rainyctl.services.order.feign.config;
+
+import cc.rainyctl.entity.Product;
+import cc.rainyctl.services.order.feign.ProductFeignClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.Feign;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.HttpHeaders;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ProductFeignClient built with ProductFeignConfig, service-product replaced by a
+// client that answers with the bytes and Content-Type the real one would send
+public class ProductFeignConfigTest {
+
+    private final ProductFeignConfig config = new ProductFeignConfig();
+
+    private final List<Request> requests = new ArrayList<>();
+
+    private ProductFeignClient client(String contentType, ObjectMapper mapper) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("messageConverters", new HttpMessageConverters());
+        return Feign.builder()
+                .contract(new SpringMvcContract())
+                .requestInterceptor(config.smileAcceptInterceptor())
+                .decoder(config.smileDecoder(beanFactory.getBeanProvider(HttpMessageConverters.class)))
+                .client((request, options) -> {
+                    requests.add(request);
+                    Object body = request.url().contains("/batch")
+                            ? List.of(product(1L), product(2L))
+                            : product(1L);
+                    return Response.builder()
+                            .status(200)
+                            .request(request)
+                            .headers(Map.<String, Collection<String>>of(HttpHeaders.CONTENT_TYPE, List.of(contentType)))
+                            .body(mapper.writeValueAsBytes(body))
+                            .build();
+                })
+                .target(ProductFeignClient.class, "http://service-product");
+    }
+
+    @Test
+    public void testDecodesSmile() {
+        ProductFeignClient client = client(ProductFeignConfig.SMILE, new ObjectMapper(new SmileFactory()));
+
+        assertEquals(product(1L), client.getProductById(1L));
+        // decoded on every call, not only the first
+        assertEquals(product(1L), client.getProductById(1L));
+        assertEquals(List.of(product(1L), product(2L)), client.getProductsByIds(List.of(1L, 2L)));
+
+        assertTrue(requests.get(0).headers().get(HttpHeaders.ACCEPT).iterator().next().startsWith(ProductFeignConfig.SMILE));
+        assertTrue(requests.get(2).url().endsWith("/api/product/batch?ids=1&ids=2"), requests.get(2).url());
+    }
+
+    // an older service-product instance without the Smile converter answers JSON
+    @Test
+    public void testDecodesJson() {
+        ProductFeignClient client = client("application/json", new ObjectMapper());
+
+        assertEquals(product(1L), client.getProductById(1L));
+        assertEquals(List.of(product(1L), product(2L)), client.getProductsByIds(List.of(1L, 2L)));
+    }
+
+    private static Product product(Long id) {
+        return new Product(id, "product-" + id, new BigDecimal("9.99"), 100, null);
+    }
+}
@@ -0,0 +1,122 @@
+package cc.rainyctl.services.order.mapper;
+
+import cc.rainyctl.entity.Order;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// OFFSET vs keyset paging of one user's order history, at increasing depth.
+// 2M orders over 20 users (100k each) in an embedded H2 database.
+// keyset stays flat, OFFSET grows with the number of skipped rows.
+// run from the IDE (main method) or:
+//   mvn -pl services/service-order test-compile exec:java \
+//     -Dexec.classpathScope=test -Dexec.mainClass=cc.rainyctl.services.order.mapper.OrderPageBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class OrderPageBenchmark {
+
+    private static final int ROWS = 2_000_000;
+    private static final int USERS = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final long USER_ID = 7L;
+
+    // number of orders already paged through
+    @org.openjdk.jmh.annotations.Param({"0", "1000", "10000", "90000"})
+    private int depth;
+
+    // the old way, for comparison only
+    public interface OffsetOrderMapper {
+        @Select("""
+            SELECT id, user_id, nick_name, address, total_amount, create_time
+            FROM t_order
+            WHERE user_id = #{userId}
+            ORDER BY user_id DESC, id DESC
+            LIMIT #{limit} OFFSET #{offset}
+        """)
+        List<Order> selectPageByUser(@Param("userId") Long userId,
+                                     @Param("offset") int offset,
+                                     @Param("limit") int limit);
+    }
+
+    private SqlSession session;
+    private OrderMapper orderMapper;
+    private OffsetOrderMapper offsetOrderMapper;
+    private Long cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // H2 would otherwise hand back the previous result of an identical query
+        String url = "jdbc:h2:mem:orders-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("""
+            CREATE TABLE t_order (
+                id BIGINT PRIMARY KEY,
+                user_id BIGINT,
+                nick_name VARCHAR(255),
+                address VARCHAR(255),
+                total_amount DECIMAL(10, 2),
+                create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP)
+        """);
+        jdbc.execute("INSERT INTO t_order (id, user_id, nick_name, address, total_amount) SELECT X, MOD(X, " + USERS + "), 'DIO', 'Cairo, Egypt', 99.00 FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        // spelled out here, in InnoDB idx_user_id already carries the primary key
+        jdbc.execute("CREATE INDEX idx_user_id ON t_order (user_id, id)");
+
+        cursor = depth == 0 ? null : jdbc.queryForObject(
+                "SELECT id FROM t_order WHERE user_id = ? ORDER BY user_id DESC, id DESC LIMIT 1 OFFSET ?",
+                Long.class, USER_ID, depth - 1);
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        // like a Spring-managed session per call, no first-level cache hits
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        configuration.setEnvironment(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(OrderMapper.class);
+        configuration.addMapper(OffsetOrderMapper.class);
+        SqlSessionFactory sessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+        session = sessionFactory.openSession(true);
+        orderMapper = session.getMapper(OrderMapper.class);
+        offsetOrderMapper = session.getMapper(OffsetOrderMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.close();
+    }
+
+    @Benchmark
+    public List<Order> offsetPage() {
+        return offsetOrderMapper.selectPageByUser(USER_ID, depth, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Order> keysetPage() {
+        return orderMapper.selectPageByUser(USER_ID, cursor, PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(OrderPageBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,120 @@
+package cc.rainyctl.services.order.service;
+
+import cc.rainyctl.services.order.mapper.OrderMapper;
+import cc.rainyctl.services.order.service.impl.OrderExportServiceImpl;
+import cc.rainyctl.services.order.shard.OrderShardingProperties;
+import cc.rainyctl.services.order.shard.OrderShards;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.mapping.Environment;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.transaction.SpringManagedTransactionFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+// OrderExportService over an on-disk H2 database seeded with the given number of orders:
+// order X is created at BASE + X seconds and has items 2X - 1 and 2X,
+// padded to about 1 KB of JSON per order
+class OrderExportFixture {
+
+    static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    final OrderExportService orderExportService;
+
+    private final OrderShards orderShards;
+
+    // ResultSet.next() calls that returned a row, over all queries
+    private final AtomicLong fetchedRows = new AtomicLong();
+
+    private volatile boolean rowStreamingRequested;
+
+    OrderExportFixture(Path dir, int orders) {
+        // small page cache and lazy results, so the database side stays bounded too
+        String url = "jdbc:h2:file:" + dir.resolve("orders") + ";CACHE_SIZE=8192;LAZY_QUERY_EXECUTION=TRUE";
+        DataSource dataSource = instrumented(new DriverManagerDataSource(url, "sa", ""));
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE t_order (id BIGINT PRIMARY KEY, user_id BIGINT, nick_name VARCHAR(255), address VARCHAR(1024), total_amount DECIMAL(10, 2), create_time TIMESTAMP)");
+        jdbc.execute("CREATE TABLE t_order_item (id BIGINT PRIMARY KEY, order_id BIGINT, product_id BIGINT, product_name VARCHAR(1024), product_price DECIMAL(10, 2), num INT)");
+        jdbc.execute("INSERT INTO t_order SELECT X, MOD(X, 1000), 'DIO', REPEAT('Cairo, Egypt. ', 40), 19.80, DATEADD(SECOND, X, TIMESTAMP '2026-01-01 00:00:00') FROM SYSTEM_RANGE(1, " + orders + ")");
+        jdbc.execute("INSERT INTO t_order_item SELECT X, (X + 1) / 2, MOD(X, 50), REPEAT('Stand Arrow ', 20), 9.90, 1 FROM SYSTEM_RANGE(1, " + 2 * orders + ")");
+        jdbc.execute("CREATE INDEX idx_create_time ON t_order (create_time)");
+        jdbc.execute("CREATE INDEX idx_order_id ON t_order_item (order_id)");
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("test", new SpringManagedTransactionFactory(), dataSource));
+        configuration.addMapper(OrderMapper.class);
+        SqlSessionTemplate sqlSession = new SqlSessionTemplate(new MybatisSqlSessionFactoryBuilder().build(configuration));
+
+        orderShards = new OrderShards(new OrderShardingProperties());
+        orderExportService = new OrderExportServiceImpl(sqlSession.getMapper(OrderMapper.class), orderShards,
+                objectMapper, new DataSourceTransactionManager(dataSource));
+    }
+
+    long fetchedRows() {
+        return fetchedRows.get();
+    }
+
+    // a statement asked MySQL for row-by-row streaming (fetch size Integer.MIN_VALUE)
+    boolean rowStreamingRequested() {
+        return rowStreamingRequested;
+    }
+
+    void close() {
+        orderShards.destroy();
+    }
+
+    private DataSource instrumented(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return instrumented(Connection.class, super.getConnection());
+            }
+        };
+    }
+
+    // H2 rejects the MySQL streaming fetch size, so it is recorded here instead of
+    // passed on; with LAZY_QUERY_EXECUTION H2 streams the rows without it
+    @SuppressWarnings("unchecked")
+    private <T> T instrumented(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("setFetchSize") && (int) args[0] == Integer.MIN_VALUE) {
+                rowStreamingRequested = true;
+                return null;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                fetchedRows.incrementAndGet();
+            }
+            if (result instanceof PreparedStatement statement) {
+                return instrumented(PreparedStatement.class, statement);
+            }
+            if (result instanceof ResultSet resultSet) {
+                return instrumented(ResultSet.class, resultSet);
+            }
+            return result;
+        });
+    }
+}
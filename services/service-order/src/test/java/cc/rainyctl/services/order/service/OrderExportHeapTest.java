@@ -0,0 +1,71 @@
+package cc.rainyctl.services.order.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import static cc.rainyctl.services.order.service.OrderExportFixture.BASE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// exports several times the heap it runs in: it can only finish if rows are streamed.
+// excluded from the default build, it needs the small fork heap of the heap-tests profile:
+//   mvn -pl services/service-order test -Pheap-tests
+@Tag("heap")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class OrderExportHeapTest {
+
+    // about 127 MB of NDJSON
+    private static final int ORDERS = 100_000;
+
+    private OrderExportFixture fixture;
+
+    @BeforeAll
+    public void setUp(@TempDir Path dir) {
+        fixture = new OrderExportFixture(dir, ORDERS);
+    }
+
+    @AfterAll
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testExportLargerThanHeap() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        long exported = fixture.orderExportService.exportOrders(BASE, BASE.plusSeconds(ORDERS + 1), out);
+
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        assertEquals(ORDERS, exported);
+        assertEquals(ORDERS, out.lines);
+        assertTrue(out.bytes > 2 * maxHeap, "exported " + out.bytes + " bytes with a " + maxHeap + " byte heap, run with -Pheap-tests");
+    }
+
+    // discards the export, counts bytes and lines
+    private static class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
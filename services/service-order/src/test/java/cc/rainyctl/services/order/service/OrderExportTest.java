@@ -0,0 +1,88 @@
+package cc.rainyctl.services.order.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import static cc.rainyctl.services.order.service.OrderExportFixture.BASE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GET /api/order/export against an on-disk H2 database, seeded once.
+// the heap-bounded run over 100k orders is OrderExportHeapTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class OrderExportTest {
+
+    private static final int ORDERS = 2_000;
+
+    private OrderExportFixture fixture;
+
+    @BeforeAll
+    public void setUp(@TempDir Path dir) {
+        fixture = new OrderExportFixture(dir, ORDERS);
+    }
+
+    @AfterAll
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    public void testExportRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = fixture.orderExportService.exportOrders(BASE.plusSeconds(10), BASE.plusSeconds(13), out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, exported);
+        assertEquals(3, lines.length);
+        assertTrue(out.toString().endsWith("\n"));
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode order = fixture.objectMapper.readTree(lines[i]);
+            assertEquals(10 + i, order.get("id").asLong());
+            assertEquals(2, order.get("productList").size());
+        }
+    }
+
+    @Test
+    public void testEmptyRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, fixture.orderExportService.exportOrders(BASE.minusDays(1), BASE, out));
+        assertEquals(0, out.size());
+    }
+
+    // the first bytes reach the client while the cursor is still near its start,
+    // and the query asked MySQL to stream rows instead of buffering the result
+    @Test
+    public void testStreamsWhileFetching() throws Exception {
+        long[] fetchedAtFirstWrite = {-1};
+        long before = fixture.fetchedRows();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (fetchedAtFirstWrite[0] < 0) {
+                    fetchedAtFirstWrite[0] = fixture.fetchedRows() - before;
+                }
+            }
+        };
+        long exported = fixture.orderExportService.exportOrders(BASE, BASE.plusSeconds(ORDERS + 1), out);
+
+        assertEquals(ORDERS, exported);
+        assertEquals(2L * ORDERS, fixture.fetchedRows() - before);
+        assertTrue(fixture.rowStreamingRequested());
+        // two rows per order, the generator flushes every 8 KB or so
+        assertTrue(fetchedAtFirstWrite[0] >= 0 && fetchedAtFirstWrite[0] < ORDERS / 10,
+                "first write after " + fetchedAtFirstWrite[0] + " of " + 2 * ORDERS + " rows");
+    }
+}
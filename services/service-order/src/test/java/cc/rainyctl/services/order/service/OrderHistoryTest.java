@@ -0,0 +1,107 @@
+package cc.rainyctl.services.order.service;
+
+import cc.rainyctl.entity.Order;
+import cc.rainyctl.services.order.dto.OrderPage;
+import cc.rainyctl.services.order.mapper.OrderItemMapper;
+import cc.rainyctl.services.order.mapper.OrderMapper;
+import cc.rainyctl.services.order.service.impl.OrderHistoryServiceImpl;
+import cc.rainyctl.services.order.shard.OrderShardingProperties;
+import cc.rainyctl.services.order.shard.OrderShards;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// keyset paging of GET /api/order/user/{userId} against an embedded H2 database
+public class OrderHistoryTest {
+
+    private SqlSession session;
+
+    private OrderShards orderShards;
+
+    private OrderHistoryService orderHistoryService;
+
+    @BeforeEach
+    public void setUp() {
+        String url = "jdbc:h2:mem:history-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE t_order (id BIGINT PRIMARY KEY, user_id BIGINT, nick_name VARCHAR(255), address VARCHAR(255), total_amount DECIMAL(10, 2), create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbc.execute("CREATE TABLE t_order_item (id BIGINT PRIMARY KEY, order_id BIGINT, product_id BIGINT, product_name VARCHAR(255), product_price DECIMAL(10, 2), num INT)");
+        jdbc.execute("CREATE INDEX idx_user_id ON t_order (user_id, id)");
+        // user 1 owns the odd orders 1..49, user 2 the even ones; two items per order
+        jdbc.execute("INSERT INTO t_order (id, user_id, nick_name, address, total_amount) SELECT X, 2 - MOD(X, 2), 'DIO', 'Cairo, Egypt', 99.00 FROM SYSTEM_RANGE(1, 50)");
+        jdbc.execute("INSERT INTO t_order_item SELECT X, (X + 1) / 2, X, 'product-' || X, 9.90, 1 FROM SYSTEM_RANGE(1, 100)");
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        configuration.setEnvironment(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(OrderMapper.class);
+        configuration.addMapper(OrderItemMapper.class);
+        session = new MybatisSqlSessionFactoryBuilder().build(configuration).openSession(true);
+
+        orderShards = new OrderShards(new OrderShardingProperties());
+        orderHistoryService = new OrderHistoryServiceImpl(session.getMapper(OrderMapper.class),
+                session.getMapper(OrderItemMapper.class), orderShards);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        session.close();
+        orderShards.destroy();
+    }
+
+    @Test
+    public void testWalkAllPages() {
+        List<Long> ids = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            OrderPage page = orderHistoryService.getOrdersByUser(1L, cursor, 10);
+            for (Order order : page.getOrders()) {
+                assertEquals(1L, order.getUserId());
+                assertEquals(2, order.getProductList().size(), "items of order " + order.getId());
+                ids.add(order.getId());
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, ids.size());
+        assertEquals(49L, ids.get(0));
+        assertEquals(1L, ids.get(24));
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) < ids.get(i - 1), "newest first");
+        }
+    }
+
+    @Test
+    public void testExactLastPage() {
+        OrderPage page = orderHistoryService.getOrdersByUser(2L, null, 25);
+        assertEquals(25, page.getOrders().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testUnknownUser() {
+        OrderPage page = orderHistoryService.getOrdersByUser(3L, null, 10);
+        assertTrue(page.getOrders().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+}
@@ -0,0 +1,159 @@
+package cc.rainyctl.services.order.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// three embedded H2 databases as order shards
+public class OrderShardingTest {
+
+    private final Map<String, String> urls = new LinkedHashMap<>();
+
+    private OrderShardingProperties properties;
+
+    private ShardingDataSource dataSource;
+
+    private OrderShards orderShards;
+
+    private JdbcTemplate jdbc;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new OrderShardingProperties();
+        properties.setEnabled(true);
+        properties.setBuckets(6);
+        for (String name : List.of("s0", "s1", "s2")) {
+            String url = "jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+            JdbcTemplate shard = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+            shard.execute("CREATE TABLE t_order (id BIGINT PRIMARY KEY, user_id BIGINT)");
+            shard.execute("CREATE TABLE t_order_item (id BIGINT PRIMARY KEY, order_id BIGINT, product_id BIGINT)");
+            urls.put(name, url);
+
+            OrderShardingProperties.Shard config = new OrderShardingProperties.Shard();
+            config.setUrl(url);
+            config.setUsername("sa");
+            config.setPassword("");
+            properties.getShards().put(name, config);
+        }
+
+        dataSource = ShardingDataSourceConfig.create(properties, ds -> ds);
+        orderShards = new OrderShards(properties);
+        jdbc = new JdbcTemplate(dataSource);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        orderShards.destroy();
+        dataSource.close();
+    }
+
+    @Test
+    public void testEvenShardMap() {
+        ShardMap shardMap = ShardMap.of(properties);
+        // 6 buckets over 3 shards -> 0,1 | 2,3 | 4,5
+        assertEquals("s0", shardMap.shardFor(0));
+        assertEquals("s0", shardMap.shardFor(7));
+        assertEquals("s1", shardMap.shardFor(3));
+        assertEquals("s2", shardMap.shardFor(5));
+        assertEquals("s2", shardMap.shardFor(-1));
+    }
+
+    @Test
+    public void testExplicitShardMap() {
+        properties.getShards().get("s0").setBuckets("0,3");
+        properties.getShards().get("s1").setBuckets("1-2");
+        properties.getShards().get("s2").setBuckets("4-5");
+        ShardMap shardMap = ShardMap.of(properties);
+        assertEquals("s0", shardMap.shardFor(3));
+        assertEquals("s1", shardMap.shardFor(2));
+
+        properties.getShards().get("s2").setBuckets("5");
+        assertThrows(IllegalStateException.class, () -> ShardMap.of(properties)); // bucket 4 unassigned
+
+        properties.getShards().get("s2").setBuckets("3-5");
+        assertThrows(IllegalStateException.class, () -> ShardMap.of(properties)); // bucket 3 twice
+
+        properties.getShards().get("s2").setBuckets(null);
+        assertThrows(IllegalStateException.class, () -> ShardMap.of(properties)); // partly explicit
+    }
+
+    @Test
+    public void testOrderAndItemsShareShard() {
+        for (long userId = 1; userId <= 12; userId++) {
+            createOrder(userId, userId * 100);
+        }
+
+        for (long userId = 1; userId <= 12; userId++) {
+            String expected = orderShards.shardFor(userId);
+            for (Map.Entry<String, String> shard : urls.entrySet()) {
+                JdbcTemplate direct = new JdbcTemplate(new DriverManagerDataSource(shard.getValue(), "sa", ""));
+                int orders = direct.queryForObject("SELECT COUNT(*) FROM t_order WHERE user_id = ?", Integer.class, userId);
+                int items = direct.queryForObject("SELECT COUNT(*) FROM t_order_item WHERE order_id = ?", Integer.class, userId * 100);
+                int expectedCount = shard.getKey().equals(expected) ? 1 : 0;
+                assertEquals(expectedCount, orders, "orders of user " + userId + " on " + shard.getKey());
+                assertEquals(expectedCount, items, "items of user " + userId + " on " + shard.getKey());
+            }
+        }
+    }
+
+    @Test
+    public void testRollbackCoversOrderAndItems() {
+        assertThrows(IllegalStateException.class, () -> tx.executeWithoutResult(status ->
+                orderShards.onUser(1L, () -> {
+                    jdbc.update("INSERT INTO t_order VALUES (?, ?)", 100L, 1L);
+                    jdbc.update("INSERT INTO t_order_item VALUES (?, ?, ?)", 100L, 100L, 7L);
+                    throw new IllegalStateException("crash after both inserts");
+                })));
+
+        Map<String, Integer> orders = orderShards.scatter(() -> count("t_order"));
+        Map<String, Integer> items = orderShards.scatter(() -> count("t_order_item"));
+        assertEquals(Map.of("s0", 0, "s1", 0, "s2", 0), orders);
+        assertEquals(Map.of("s0", 0, "s1", 0, "s2", 0), items);
+    }
+
+    @Test
+    public void testScatterGather() {
+        for (long userId = 1; userId <= 12; userId++) {
+            createOrder(userId, userId * 100);
+        }
+
+        Map<String, Integer> counts = orderShards.scatter(() -> count("t_order"));
+        assertEquals(List.of("s0", "s1", "s2"), List.copyOf(counts.keySet()));
+        assertEquals(12, counts.values().stream().mapToInt(Integer::intValue).sum());
+
+        List<Long> userIds = orderShards.gather(() -> jdbc.queryForList("SELECT user_id FROM t_order", Long.class));
+        assertEquals(12, userIds.size());
+        assertEquals(12, userIds.stream().distinct().count());
+    }
+
+    @Test
+    public void testNoShardSelected() {
+        assertThrows(IllegalStateException.class, () -> count("t_order"));
+    }
+
+    private void createOrder(long userId, long orderId) {
+        tx.executeWithoutResult(status -> orderShards.onUser(userId, () -> {
+            jdbc.update("INSERT INTO t_order VALUES (?, ?)", orderId, userId);
+            jdbc.update("INSERT INTO t_order_item VALUES (?, ?, ?)", orderId, orderId, 7L);
+            return null;
+        }));
+    }
+
+    private Integer count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,223 @@
+package cc.rainyctl.services.order.tuning;
+
+import cc.rainyctl.services.order.config.OrderServiceProperties;
+import cc.rainyctl.services.order.feign.config.TunedRequestOptions;
+import com.alibaba.cloud.nacos.client.NacosPropertySource;
+import com.zaxxer.hikari.HikariDataSource;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderTuningHolderTest {
+
+    private final List<OrderTuning> applied = new ArrayList<>();
+
+    private MockEnvironment environment;
+
+    private OrderTuningHolder holder;
+
+    @BeforeEach
+    public void setUp() {
+        // local configuration, what Nacos does not set falls back to it
+        environment = new MockEnvironment()
+                .withProperty("order.timeout", "300m")
+                .withProperty("order.feign.read-timeout", "5s");
+        OrderServiceProperties properties = new OrderServiceProperties();
+        properties.setTimeout(Duration.ofMinutes(300));
+        properties.getFeign().setReadTimeout(Duration.ofSeconds(5));
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("recorder", (OrderTuningListener) applied::add);
+        holder = new OrderTuningHolder(properties, environment, beanFactory.getBeanProvider(OrderTuningListener.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        holder.destroy();
+    }
+
+    @Test
+    public void testUpdateSwapsSnapshot() {
+        OrderTuning before = holder.current();
+        assertEquals(Duration.ofSeconds(5), before.getFeignReadTimeout());
+
+        assertTrue(holder.update("order.auto-confirm=3d\norder.feign.connect-timeout=200ms\norder.limiter.create-order-qps=50"));
+
+        OrderTuning after = holder.current();
+        assertEquals(Duration.ofDays(3), after.getAutoConfirm());
+        assertEquals(Duration.ofMillis(200), after.getFeignConnectTimeout());
+        assertEquals(50, after.getCreateOrderQps());
+        // not in the Nacos content: local values
+        assertEquals(Duration.ofMinutes(300), after.getTimeout());
+        assertEquals(Duration.ofSeconds(5), after.getFeignReadTimeout());
+        // the old snapshot is untouched, readers holding it see a consistent view
+        assertEquals(Duration.ofSeconds(10), before.getFeignConnectTimeout());
+        assertEquals(List.of(after), applied);
+    }
+
+    // the environment keeps the Nacos content it started with, a key removed
+    // from Nacos has to fall back to the local value / default, not to that
+    @Test
+    public void testRemovedKeyReverts() {
+        String configInfo = "order.feign.read-timeout=2s\norder.db-pool.max-size=4";
+        environment.getPropertySources().addFirst(nacos(Map.of("order.feign.read-timeout", "2s", "order.db-pool.max-size", "4")));
+        assertTrue(holder.update(configInfo));
+        assertEquals(Duration.ofSeconds(2), holder.current().getFeignReadTimeout());
+        assertEquals(4, holder.current().getDbPoolMaxSize());
+
+        assertTrue(holder.update("order.feign.read-timeout=2s"));
+        assertEquals(0, holder.current().getDbPoolMaxSize());
+
+        assertTrue(holder.update(""));
+        assertEquals(Duration.ofSeconds(5), holder.current().getFeignReadTimeout());
+    }
+
+    // what the Nacos config data loader left in the environment at startup
+    private static NacosPropertySource nacos(Map<String, Object> content) {
+        return new NacosPropertySource(List.of(new MapPropertySource("service-order.properties", content)),
+                "DEFAULT_GROUP", "service-order.properties", new Date(), true);
+    }
+
+    @Test
+    public void testInvalidUpdateKeepsSnapshot() {
+        OrderTuning before = holder.current();
+
+        assertFalse(holder.update("order.feign.read-timeout=-1s"));
+        assertFalse(holder.update("order.timeout=300 fortnights"));
+        assertFalse(holder.update("order.db-pool.max-size=many"));
+        assertFalse(holder.update("order.limiter.create-order-qps=-5"));
+
+        assertSame(before, holder.current());
+        assertTrue(applied.isEmpty());
+    }
+
+    // the form the README documented while order.timeout was a plain string
+    @Test
+    public void testLegacyDurationUpdate() {
+        assertTrue(holder.update("order.timeout=300min\norder.auto-confirm=7 days"));
+
+        assertEquals(Duration.ofHours(5), holder.current().getTimeout());
+        assertEquals(Duration.ofDays(7), holder.current().getAutoConfirm());
+    }
+
+    @Test
+    public void testUnchangedUpdateIsNotApplied() {
+        OrderTuning before = holder.current();
+
+        assertTrue(holder.update("# nothing tunable\norder.timeout=300m"));
+
+        assertSame(before, holder.current());
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    public void testInvalidStartupConfig() {
+        OrderServiceProperties properties = new OrderServiceProperties();
+        properties.getFeign().setConnectTimeout(Duration.ZERO);
+        assertThrows(IllegalArgumentException.class, () -> OrderTuning.of(properties));
+    }
+
+    interface Ping {
+        @RequestLine("GET /ping")
+        String ping();
+    }
+
+    @Test
+    public void testFeignTimeoutsAppliedOnNextCall() {
+        List<Integer> readTimeouts = new ArrayList<>();
+        Ping client = Feign.builder()
+                .options(new TunedRequestOptions(holder))
+                .client((request, options) -> {
+                    readTimeouts.add(options.readTimeoutMillis());
+                    return Response.builder()
+                            .status(200)
+                            .request(request)
+                            .headers(Map.of())
+                            .body("pong", StandardCharsets.UTF_8)
+                            .build();
+                })
+                .target(Ping.class, "http://service-product");
+
+        client.ping();
+        holder.update("order.feign.read-timeout=750ms");
+        client.ping();
+
+        assertEquals(List.of(5000, 750), readTimeouts);
+    }
+
+    @Test
+    public void testPoolResizedWhileRunning() throws Exception {
+        try (HikariDataSource pool = new HikariDataSource()) {
+            pool.setJdbcUrl("jdbc:h2:mem:tuning-" + System.nanoTime());
+            pool.getConnection().close();
+
+            DataSourcePoolTuner tuner = new DataSourcePoolTuner(pool, holder);
+            assertEquals(10, pool.getMaximumPoolSize());
+
+            holder.update("order.db-pool.max-size=4");
+            tuner.apply(holder.current());
+            assertEquals(4, pool.getMaximumPoolSize());
+            assertEquals(4, pool.getMinimumIdle());
+        }
+    }
+
+    // order.db-pool.max-size removed from Nacos: back to the size the pool was configured with
+    @Test
+    public void testPoolRestoredWhenKeyRemoved() throws Exception {
+        try (HikariDataSource pool = new HikariDataSource()) {
+            pool.setJdbcUrl("jdbc:h2:mem:tuning-" + System.nanoTime());
+            pool.setMinimumIdle(2);
+            pool.getConnection().close();
+            DataSourcePoolTuner tuner = new DataSourcePoolTuner(pool, holder);
+
+            environment.getPropertySources().addFirst(nacos(Map.of("order.db-pool.max-size", "1")));
+            holder.update("order.db-pool.max-size=1");
+            tuner.apply(holder.current());
+            assertEquals(1, pool.getMaximumPoolSize());
+            assertEquals(1, pool.getMinimumIdle());
+
+            holder.update("");
+            tuner.apply(holder.current());
+            assertEquals(0, holder.current().getDbPoolMaxSize());
+            assertEquals(10, pool.getMaximumPoolSize());
+            assertEquals(2, pool.getMinimumIdle());
+        }
+    }
+
+    // before its first connection Hikari reports minimumIdle as -1
+    @Test
+    public void testPoolResizedBeforeStart() throws Exception {
+        try (HikariDataSource pool = new HikariDataSource()) {
+            pool.setJdbcUrl("jdbc:h2:mem:tuning-" + System.nanoTime());
+            holder.update("order.db-pool.max-size=4");
+            DataSourcePoolTuner tuner = new DataSourcePoolTuner(pool, holder);
+            assertEquals(4, pool.getMaximumPoolSize());
+            assertEquals(4, pool.getMinimumIdle());
+
+            pool.getConnection().close();
+            holder.update("");
+            tuner.apply(holder.current());
+            assertEquals(10, pool.getMaximumPoolSize());
+            assertEquals(10, pool.getMinimumIdle());
+        }
+    }
+}
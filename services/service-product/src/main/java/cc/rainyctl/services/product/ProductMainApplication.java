@@ -1,5 +1,6 @@
 package cc.rainyctl.services.product;
 
+import cc.rainyctl.common.startup.StartupTimeline;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -13,6 +14,6 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 public class ProductMainApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(ProductMainApplication.class, args);
+        StartupTimeline.apply(new SpringApplication(ProductMainApplication.class)).run(args);
     }
 }
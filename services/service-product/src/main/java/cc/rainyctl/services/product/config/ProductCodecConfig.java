@@ -0,0 +1,21 @@
+package cc.rainyctl.services.product.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class ProductCodecConfig implements WebMvcConfigurer {
+
+    // Smile (binary JSON) for internal callers that ask for it with
+    // "Accept: application/x-jackson-smile", e.g. service-order via Feign.
+    // appended after the JSON converter, so "Accept: */*" and callers
+    // coming through the gateway still get JSON by default
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter());
+    }
+}
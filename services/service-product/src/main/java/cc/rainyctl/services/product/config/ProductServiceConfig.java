@@ -0,0 +1,27 @@
+package cc.rainyctl.services.product.config;
+
+import cc.rainyctl.common.trace.TraceFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class ProductServiceConfig {
+
+    // X-Trace-Id (from the gateway or service-order's Feign calls), Server-Timing and slow-request logging
+    @Bean
+    public TraceFilter traceFilter(@Value("${product.tracing.slow-threshold:1s}") Duration slowThreshold) {
+        return new TraceFilter(() -> slowThreshold);
+    }
+
+    // with spring.main.lazy-initialization the datasource is still built at startup,
+    // so a broken replica config fails the boot instead of the first request
+    @Bean
+    public static LazyInitializationExcludeFilter eagerDataSource() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class);
+    }
+}
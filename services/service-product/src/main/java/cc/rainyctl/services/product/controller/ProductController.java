@@ -6,12 +6,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/product")
 public class ProductController {
 
+    // ids per batch call, keeps the IN list and the query string bounded
+    public static final int MAX_BATCH_SIZE = 200;
+
     private final ProductService productService;
 
     @GetMapping("/hello")
@@ -25,6 +30,17 @@ public class ProductController {
         return productService.getProductById(productId);
     }
 
+    // /batch?ids=1&ids=2 (literal path, takes precedence over /{id}),
+    // used by the product batch loader in service-order
+    @GetMapping("/batch")
+    public List<Product> getProducts(@RequestParam("ids") List<Long> productIds) {
+        if (productIds.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("At most " + MAX_BATCH_SIZE + " ids per batch, got " + productIds.size());
+        }
+        log.info("Get products by ids: {}", productIds);
+        return productService.getProductsByIds(productIds);
+    }
+
     @PostMapping("/stock/deduct")
     public void deductStock(@RequestParam("productId") Long productId,
                             @RequestParam("count") int count) {
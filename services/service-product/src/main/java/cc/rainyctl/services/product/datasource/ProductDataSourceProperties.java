@@ -0,0 +1,39 @@
+package cc.rainyctl.services.product.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// the primary is still configured with spring.datasource.*
+@Component
+@ConfigurationProperties(prefix = "product.datasource")
+@Data
+public class ProductDataSourceProperties {
+
+    // send @Transactional(readOnly = true) work to the replicas
+    private boolean readWriteSplit = false;
+
+    private Balance balance = Balance.ROUND_ROBIN;
+
+    // after a stock deduction, reads of that product stay on the primary
+    // for this long to hide replication lag. 0 turns it off
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum Balance {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,36 @@
+package cc.rainyctl.services.product.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+
+// the connection is fetched lazily on the first statement, after the
+// transaction manager has marked it read-only or not:
+// read-only transactions -> replicas, everything else -> primary
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final DataSource primary;
+
+    private final ReplicaDataSource replicas;
+
+    public ReadWriteDataSource(DataSource primary, ReplicaDataSource replicas) {
+        super(primary);
+        setReadOnlyDataSource(replicas);
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    public ReplicaDataSource getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() {
+        replicas.close();
+        if (primary instanceof HikariDataSource hikari) {
+            hikari.close();
+        }
+    }
+}
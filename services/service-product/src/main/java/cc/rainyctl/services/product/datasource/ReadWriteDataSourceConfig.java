@@ -0,0 +1,45 @@
+package cc.rainyctl.services.product.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// replaces the auto-configured DataSource only when the split is enabled,
+// the pools stay internal so Seata proxies a single DataSource as before
+@Configuration
+@ConditionalOnProperty(prefix = "product.datasource", name = "read-write-split", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 ProductDataSourceProperties productDataSourceProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("product-primary");
+        return create(primary, productDataSourceProperties);
+    }
+
+    public static ReadWriteDataSource create(DataSource primary, ProductDataSourceProperties properties) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (ProductDataSourceProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            dataSource.setPoolName("product-replica-" + replicas.size());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+        return new ReadWriteDataSource(primary, new ReplicaDataSource(primary, replicas, properties.getBalance()));
+    }
+}
@@ -0,0 +1,39 @@
+package cc.rainyctl.services.product.datasource;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// remembers recently written products so their reads can skip the replicas
+// for product.datasource.read-your-writes-window (local to this instance)
+@Component
+public class ReadYourWritesWindow {
+
+    private final long windowNanos;
+
+    // productId -> System.nanoTime() of the last write
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesWindow(ProductDataSourceProperties properties) {
+        this.windowNanos = properties.getReadYourWritesWindow().toNanos();
+    }
+
+    public void recordWrite(Long productId) {
+        if (windowNanos > 0) {
+            lastWrites.put(productId, System.nanoTime());
+        }
+    }
+
+    public boolean isRecentlyWritten(Long productId) {
+        Long writtenAt = lastWrites.get(productId);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < windowNanos) {
+            return true;
+        }
+        lastWrites.remove(productId, writtenAt);
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package cc.rainyctl.services.product.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// picks one replica per connection request,
+// falls back to the primary when there is no replica or it is forced
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+
+    private final List<DataSource> replicas;
+
+    private final ProductDataSourceProperties.Balance balance;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas, ProductDataSourceProperties.Balance balance) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balance = balance;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return select().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return select().getConnection(username, password);
+    }
+
+    DataSource select() {
+        if (replicas.isEmpty() || ReplicaRouting.isPrimaryForced()) {
+            return primary;
+        }
+        if (balance == ProductDataSourceProperties.Balance.LEAST_CONNECTIONS) {
+            return leastConnections();
+        }
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+
+    // fewest borrowed connections wins, ties go round-robin
+    private DataSource leastConnections() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        DataSource best = null;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            DataSource candidate = replicas.get((start + i) % size);
+            int active = activeConnections(candidate);
+            if (active < bestActive) {
+                best = candidate;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    // only Hikari exposes the count, other pools always look idle
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package cc.rainyctl.services.product.datasource;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+// wraps reads that may go to a replica in a read-only transaction, which is what
+// ReadWriteDataSource routes on. with the split off there is a single DataSource
+// and the read runs as a plain statement, no transaction and no read-only toggles
+@Component
+public class ReplicaReads {
+
+    // null when product.datasource.read-write-split is off
+    private final TransactionTemplate readOnly;
+
+    public ReplicaReads(ProductDataSourceProperties properties, PlatformTransactionManager transactionManager) {
+        if (properties.isReadWriteSplit()) {
+            readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+        } else {
+            readOnly = null;
+        }
+    }
+
+    public <T> T read(Supplier<T> action) {
+        if (readOnly == null) {
+            return action.get();
+        }
+        return readOnly.execute(status -> action.get());
+    }
+}
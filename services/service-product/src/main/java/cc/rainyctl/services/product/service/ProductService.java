@@ -2,9 +2,15 @@ package cc.rainyctl.services.product.service;
 
 import cc.rainyctl.entity.Product;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ProductService {
 
     Product getProductById(Long productId);
 
+    // unknown ids are left out
+    List<Product> getProductsByIds(Collection<Long> productIds);
+
     void deductStock(Long productId, int count);
 }
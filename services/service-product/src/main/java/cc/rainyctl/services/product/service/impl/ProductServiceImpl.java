@@ -1,12 +1,19 @@
 package cc.rainyctl.services.product.service.impl;
 
+import cc.rainyctl.common.trace.Trace;
 import cc.rainyctl.entity.Product;
+import cc.rainyctl.services.product.datasource.ReadYourWritesWindow;
+import cc.rainyctl.services.product.datasource.ReplicaReads;
+import cc.rainyctl.services.product.datasource.ReplicaRouting;
 import cc.rainyctl.services.product.mapper.ProductMapper;
 import cc.rainyctl.services.product.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+
 @Slf4j
 @RequiredArgsConstructor
 @Service
@@ -14,20 +21,42 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductMapper productMapper;
 
+    private final ReadYourWritesWindow readYourWritesWindow;
+
+    private final ReplicaReads replicaReads;
+
+    // served by a replica when the read/write split is enabled
     @Override
     public Product getProductById(Long productId) {
-        return productMapper.selectById(productId);
+        if (readYourWritesWindow.isRecentlyWritten(productId)) {
+            return Trace.span("product-select", () -> replicaReads.read(() -> ReplicaRouting.onPrimary(() -> productMapper.selectById(productId))));
+        }
+        return Trace.span("product-select", () -> replicaReads.read(() -> productMapper.selectById(productId)));
+    }
+
+    // one IN query for the whole batch, on the primary if any of them was just written
+    @Override
+    public List<Product> getProductsByIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        if (productIds.stream().anyMatch(readYourWritesWindow::isRecentlyWritten)) {
+            return Trace.span("product-select", () -> replicaReads.read(() -> ReplicaRouting.onPrimary(() -> productMapper.selectByIds(productIds))));
+        }
+        return Trace.span("product-select", () -> replicaReads.read(() -> productMapper.selectByIds(productIds)));
     }
 
+    // a single UPDATE, outside a read-only transaction it always runs on the primary
     @Override
     public void deductStock(Long productId, int count) {
         if (count < 0) {
             throw new RuntimeException("Count must be greater than 0.");
         }
-        int updated = productMapper.deductStock(productId, count);
+        int updated = Trace.span("stock-update", () -> productMapper.deductStock(productId, count));
         if (updated == 0) {
             throw new RuntimeException("Product stock is not enough.");
         }
+        readYourWritesWindow.recordWrite(productId);
         log.info("Product {} stock deducted by {}", productId, count);
     }
 }
@@ -0,0 +1,103 @@
+package cc.rainyctl.services.product.codec;
+
+import cc.rainyctl.entity.Product;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON vs Smile encode/decode of Product payloads, as sent from
+// service-product to service-order.
+// run from the IDE (main method) or:
+//   mvn -pl services/service-product test-compile exec:java \
+//     -Dexec.classpathScope=test -Dexec.mainClass=cc.rainyctl.services.product.codec.ProductCodecBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductCodecBenchmark {
+
+    // single: one Product (GET /api/product/{id})
+    // batch: a list of 100 Products
+    @Param({"single", "batch"})
+    private String payload;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    private Object value;
+    private JavaType type;
+    private byte[] jsonBytes;
+    private byte[] smileBytes;
+
+    @Setup
+    public void setup() throws Exception {
+        if ("single".equals(payload)) {
+            value = product(1);
+            type = json.constructType(Product.class);
+        } else {
+            value = products(100);
+            type = json.getTypeFactory().constructCollectionType(List.class, Product.class);
+        }
+        jsonBytes = json.writeValueAsBytes(value);
+        smileBytes = smile.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws Exception {
+        return json.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() throws Exception {
+        return smile.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object decodeJson() throws Exception {
+        return json.readValue(jsonBytes, type);
+    }
+
+    @Benchmark
+    public Object decodeSmile() throws Exception {
+        return smile.readValue(smileBytes, type);
+    }
+
+    static Product product(long id) {
+        return new Product(id, "Stand Arrow #" + id, new BigDecimal("1999.99").add(BigDecimal.valueOf(id)), 100, null);
+    }
+
+    static List<Product> products(int n) {
+        List<Product> list = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            list.add(product(i));
+        }
+        return list;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // payload size is not something JMH measures, print it up front
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        for (Object value : List.of(product(1), products(100))) {
+            String name = value instanceof List ? "batch(100)" : "single";
+            System.out.printf("%-10s json=%6d bytes, smile=%6d bytes%n", name,
+                    json.writeValueAsBytes(value).length, smile.writeValueAsBytes(value).length);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(ProductCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
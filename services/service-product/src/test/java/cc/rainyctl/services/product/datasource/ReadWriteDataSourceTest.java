@@ -0,0 +1,180 @@
+package cc.rainyctl.services.product.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// embedded H2 databases stand in for the primary and the replicas,
+// each one only knows its own name
+public class ReadWriteDataSourceTest {
+
+    private final List<ReadWriteDataSource> opened = new ArrayList<>();
+
+    @AfterEach
+    public void close() {
+        opened.forEach(ReadWriteDataSource::close);
+    }
+
+    @Test
+    public void testReadOnlyTransactionGoesToReplica() {
+        ReadWriteDataSource dataSource = create(ProductDataSourceProperties.Balance.ROUND_ROBIN, "replica");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        assertEquals("replica", inTransaction(dataSource, true, () -> node(jdbc)));
+        assertEquals("primary", inTransaction(dataSource, false, () -> node(jdbc)));
+        // no transaction at all stays on the primary as well
+        assertEquals("primary", node(jdbc));
+    }
+
+    @Test
+    public void testWritesStayOnPrimary() {
+        ReadWriteDataSource dataSource = create(ProductDataSourceProperties.Balance.ROUND_ROBIN, "replica");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        inTransaction(dataSource, false, () -> jdbc.update("UPDATE t_node SET stock = stock - 1"));
+
+        assertEquals(99, inTransaction(dataSource, false, () -> stock(jdbc)));
+        assertEquals(100, inTransaction(dataSource, true, () -> stock(jdbc)));
+    }
+
+    @Test
+    public void testRoundRobin() {
+        ReadWriteDataSource dataSource = create(ProductDataSourceProperties.Balance.ROUND_ROBIN, "replica-a", "replica-b");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(inTransaction(dataSource, true, () -> node(jdbc)));
+        }
+        assertEquals(List.of("replica-a", "replica-b", "replica-a", "replica-b"), nodes);
+    }
+
+    @Test
+    public void testLeastConnections() throws Exception {
+        ReadWriteDataSource dataSource = create(ProductDataSourceProperties.Balance.LEAST_CONNECTIONS, "replica-a", "replica-b");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        // keep one replica busy, every read has to land on the other one
+        try (Connection busy = dataSource.getReplicas().getConnection()) {
+            String busyNode = new JdbcTemplate(new SingleConnectionDataSource(busy, true)).queryForObject("SELECT name FROM t_node", String.class);
+            for (int i = 0; i < 4; i++) {
+                String node = inTransaction(dataSource, true, () -> node(jdbc));
+                assertFalse(node.equals(busyNode), "picked the busy replica " + node);
+            }
+        }
+    }
+
+    @Test
+    public void testForcedPrimary() {
+        ReadWriteDataSource dataSource = create(ProductDataSourceProperties.Balance.ROUND_ROBIN, "replica");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        String node = inTransaction(dataSource, true, () -> ReplicaRouting.onPrimary(() -> node(jdbc)));
+        assertEquals("primary", node);
+        assertFalse(ReplicaRouting.isPrimaryForced());
+    }
+
+    @Test
+    public void testReplicaReads() {
+        ReadWriteDataSource dataSource = create(ProductDataSourceProperties.Balance.ROUND_ROBIN, "replica");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        ProductDataSourceProperties properties = new ProductDataSourceProperties();
+        properties.setReadWriteSplit(true);
+        ReplicaReads reads = new ReplicaReads(properties, new DataSourceTransactionManager(dataSource));
+
+        assertEquals("replica", reads.read(() -> node(jdbc)));
+        assertEquals("primary", reads.read(() -> ReplicaRouting.onPrimary(() -> node(jdbc))));
+    }
+
+    // the default single DataSource needs no transaction to route, so a read opens none
+    @Test
+    public void testReplicaReadsWithoutSplit() {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(url("primary"), "sa", ""));
+        ReplicaReads reads = new ReplicaReads(new ProductDataSourceProperties(), new DataSourceTransactionManager(jdbc.getDataSource()));
+
+        assertEquals("primary", reads.read(() -> node(jdbc)));
+        assertFalse(reads.read(TransactionSynchronizationManager::isActualTransactionActive));
+    }
+
+    @Test
+    public void testReadYourWritesWindow() throws Exception {
+        ProductDataSourceProperties properties = new ProductDataSourceProperties();
+        properties.setReadYourWritesWindow(Duration.ofMillis(200));
+        ReadYourWritesWindow window = new ReadYourWritesWindow(properties);
+
+        window.recordWrite(1L);
+        assertTrue(window.isRecentlyWritten(1L));
+        assertFalse(window.isRecentlyWritten(2L));
+
+        Thread.sleep(300);
+        assertFalse(window.isRecentlyWritten(1L));
+    }
+
+    @Test
+    public void testReadYourWritesWindowDisabled() {
+        ReadYourWritesWindow window = new ReadYourWritesWindow(new ProductDataSourceProperties());
+        window.recordWrite(1L);
+        assertFalse(window.isRecentlyWritten(1L));
+    }
+
+    private ReadWriteDataSource create(ProductDataSourceProperties.Balance balance, String... replicas) {
+        ProductDataSourceProperties properties = new ProductDataSourceProperties();
+        properties.setBalance(balance);
+        for (String name : replicas) {
+            ProductDataSourceProperties.Replica replica = new ProductDataSourceProperties.Replica();
+            replica.setUrl(url(name));
+            replica.setUsername("sa");
+            replica.setPassword("");
+            properties.getReplicas().add(replica);
+        }
+
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl(url("primary"));
+        primary.setUsername("sa");
+        primary.setPassword("");
+
+        ReadWriteDataSource dataSource = ReadWriteDataSourceConfig.create(primary, properties);
+        opened.add(dataSource);
+        return dataSource;
+    }
+
+    // a fresh database per test, named after the node and seeded with its name
+    private String url(String name) {
+        String url = "jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbc.execute("CREATE TABLE t_node (name VARCHAR(32), stock INT)");
+        jdbc.update("INSERT INTO t_node VALUES (?, 100)", name);
+        return url;
+    }
+
+    private static String node(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("SELECT name FROM t_node", String.class);
+    }
+
+    private static Integer stock(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("SELECT stock FROM t_node", Integer.class);
+    }
+
+    private static <T> T inTransaction(DataSource dataSource, boolean readOnly, Supplier<T> action) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> action.get());
+    }
+}